@@ -0,0 +1,206 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.SWTGraphics;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.widgets.Display;
+
+import com.navalgroup.capella.schematic.design.images.figures.ImageDataTransformer;
+import com.navalgroup.capella.schematic.design.images.figures.Orientation;
+
+/**
+ * Compare the two ways Schematic figures paint rotated and mirrored images:
+ * transformed copies of the image created once and painted as is, and the
+ * image in its initial orientation transformed at paint time (the "Rotate
+ * images when painting" preference). For each mode, the time to create the
+ * images, the time to paint every orientation and the native bytes of the
+ * images are printed.
+ *
+ * <p>
+ * Run it with SWT, Draw2D and the classes of the
+ * com.navalgroup.capella.schematic.design plug-in on the class path:
+ *
+ * <pre>
+ * java -cp swt.jar:draw2d.jar:design/bin PaintTransformBenchmark [size] [paints]
+ * </pre>
+ */
+public final class PaintTransformBenchmark {
+
+	/**
+	 * Default size of the square source image, in pixels.
+	 */
+	private static final int DEFAULT_SIZE = 1024;
+
+	/**
+	 * Default number of paints of each orientation.
+	 */
+	private static final int DEFAULT_PAINTS = 50;
+
+	/**
+	 * Size of the painted figure, in pixels.
+	 */
+	private static final int FIGURE_SIZE = 256;
+
+	/**
+	 * Direct palette masks.
+	 */
+	private static final int RED_MASK = 0xFF0000;
+	private static final int GREEN_MASK = 0xFF00;
+	private static final int BLUE_MASK = 0xFF;
+
+	/**
+	 * Nanoseconds in a millisecond.
+	 */
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	/**
+	 * Constructor.
+	 */
+	private PaintTransformBenchmark() {
+	}
+
+	/**
+	 * Run the benchmark.
+	 *
+	 * @param args
+	 *            optional size of the source image and number of paints of
+	 *            each orientation
+	 */
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SIZE;
+		int paints = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PAINTS;
+		Display display = new Display();
+		try {
+			ImageData source = createSource(size);
+			Image canvas = new Image(display, FIGURE_SIZE, FIGURE_SIZE);
+			try {
+				// warm up both paths before measuring
+				runStored(display, source, canvas, 1);
+				runAtPaint(display, source, canvas, 1);
+				System.out.println(String.format("Source %dx%d, %d paints per orientation", size, size, paints)); //$NON-NLS-1$
+				print("Transformed images", runStored(display, source, canvas, paints)); //$NON-NLS-1$
+				print("Transform at paint", runAtPaint(display, source, canvas, paints)); //$NON-NLS-1$
+			} finally {
+				canvas.dispose();
+			}
+		} finally {
+			display.dispose();
+		}
+	}
+
+	/**
+	 * Create a transformed image per orientation, then paint them as is.
+	 */
+	private static long[] runStored(Display display, ImageData source, Image canvas, int paints) {
+		long start = System.nanoTime();
+		List<Image> images = new ArrayList<>();
+		long bytes = 0;
+		for (Orientation orientation : Orientation.values()) {
+			ImageData data = ImageDataTransformer.transform(source, orientation);
+			bytes += getNativeBytes(data);
+			images.add(new Image(display, data));
+		}
+		long created = System.nanoTime();
+		GC gc = new GC(canvas);
+		Graphics graphics = new SWTGraphics(gc);
+		try {
+			for (int i = 0; i < paints; i++) {
+				for (Image image : images) {
+					paint(graphics, image);
+				}
+			}
+		} finally {
+			graphics.dispose();
+			gc.dispose();
+			images.forEach(Image::dispose);
+		}
+		return new long[] { created - start, System.nanoTime() - created, bytes };
+	}
+
+	/**
+	 * Create the image in its initial orientation, then paint it through the
+	 * transform of each orientation, as the Schematic figures do.
+	 */
+	private static long[] runAtPaint(Display display, ImageData source, Image canvas, int paints) {
+		long start = System.nanoTime();
+		Image image = new Image(display, source);
+		long created = System.nanoTime();
+		GC gc = new GC(canvas);
+		Graphics graphics = new SWTGraphics(gc);
+		try {
+			for (int i = 0; i < paints; i++) {
+				for (Orientation orientation : Orientation.values()) {
+					graphics.pushState();
+					transform(graphics, orientation);
+					paint(graphics, image);
+					graphics.popState();
+				}
+			}
+		} finally {
+			graphics.dispose();
+			gc.dispose();
+			image.dispose();
+		}
+		return new long[] { created - start, System.nanoTime() - created, getNativeBytes(source) };
+	}
+
+	private static void transform(Graphics graphics, Orientation orientation) {
+		int center = FIGURE_SIZE / 2;
+		float scaleX = orientation.isMirroring() ? -1 : 1;
+		graphics.translate(center, center);
+		graphics.rotate(orientation.getRotation());
+		graphics.scale(scaleX, 1);
+		graphics.translate(-center, -center);
+	}
+
+	private static void paint(Graphics graphics, Image image) {
+		org.eclipse.swt.graphics.Rectangle bounds = image.getBounds();
+		graphics.drawImage(image, 0, 0, bounds.width, bounds.height, 0, 0, FIGURE_SIZE, FIGURE_SIZE);
+	}
+
+	/**
+	 * Create an opaque gradient image with an alpha channel, as a decoded
+	 * symbol.
+	 */
+	private static ImageData createSource(int size) {
+		ImageData data = new ImageData(size, size, 32, new PaletteData(RED_MASK, GREEN_MASK, BLUE_MASK));
+		data.alphaData = new byte[size * size];
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				data.setPixel(x, y, (x * BLUE_MASK / size) << 16 | (y * BLUE_MASK / size) << 8);
+				data.alphaData[y * size + x] = (byte) BLUE_MASK;
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Estimate the native memory of an image, the pixels and the alpha
+	 * channel.
+	 */
+	private static long getNativeBytes(ImageData data) {
+		long bytes = data.data.length;
+		if (data.alphaData != null) {
+			bytes += data.alphaData.length;
+		}
+		return bytes;
+	}
+
+	private static void print(String mode, long[] result) {
+		System.out.println(String.format("%s: create %.1f ms, paint %.1f ms, native %d KB", mode, //$NON-NLS-1$
+				result[0] / NANOS_PER_MILLI, result[1] / NANOS_PER_MILLI, result[2] / 1024));
+	}
+}
@@ -0,0 +1,89 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the eviction of the least recently used files of
+ * {@link PersistentImageCache}. Run it with JUnit 4 and the classes of the
+ * com.navalgroup.capella.schematic.design plug-in on the class path.
+ */
+public class PersistentImageCacheTest {
+
+	/**
+	 * Bytes of each cache file.
+	 */
+	private static final int FILE_SIZE = 10;
+
+	/**
+	 * Directory of the cache files.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void evictDeletesLeastRecentlyUsedFirst() throws IOException {
+		File oldest = createFile("a.img", 1000);
+		File middle = createFile("b.img", 2000);
+		File newest = createFile("c.img", 3000);
+		File[] files = { newest, oldest, middle };
+
+		long remaining = PersistentImageCache.evict(files, 3 * FILE_SIZE, FILE_SIZE + 5);
+
+		assertEquals(FILE_SIZE, remaining);
+		assertFalse(oldest.exists());
+		assertFalse(middle.exists());
+		assertTrue(newest.exists());
+	}
+
+	@Test
+	public void evictKeepsFilesWithinBudget() throws IOException {
+		File first = createFile("a.img", 1000);
+		File second = createFile("b.img", 2000);
+
+		long remaining = PersistentImageCache.evict(new File[] { first, second }, 2 * FILE_SIZE, 2 * FILE_SIZE);
+
+		assertEquals(2 * FILE_SIZE, remaining);
+		assertTrue(first.exists());
+		assertTrue(second.exists());
+	}
+
+	@Test
+	public void evictIgnoresFilesDeletedMeanwhile() throws IOException {
+		File deleted = createFile("a.img", 1000);
+		File newest = createFile("b.img", 2000);
+		File[] files = { deleted, newest };
+		Files.delete(deleted.toPath());
+
+		long remaining = PersistentImageCache.evict(files, 2 * FILE_SIZE, FILE_SIZE);
+
+		// the deleted file frees nothing, the next one is evicted instead
+		assertEquals(FILE_SIZE, remaining);
+		assertFalse(newest.exists());
+	}
+
+	private File createFile(String name, long lastModified) throws IOException {
+		File file = folder.newFile(name);
+		Files.write(file.toPath(), new byte[FILE_SIZE]);
+		assertTrue(file.setLastModified(lastModified));
+		return file;
+	}
+}
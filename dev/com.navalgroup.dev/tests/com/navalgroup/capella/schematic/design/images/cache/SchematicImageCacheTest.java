@@ -0,0 +1,155 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Tests of the eviction and reference counting of {@link SchematicImageCache}.
+ * The images are created on a display and the budget is read from the
+ * preferences: run it as a JUnit plug-in test.
+ */
+public class SchematicImageCacheTest {
+
+	/**
+	 * Budget of the cache during the tests, in megabytes.
+	 */
+	private static final int BUDGET = 1;
+
+	/**
+	 * Estimated bytes of each image, two images exceed the budget.
+	 */
+	private static final long IMAGE_BYTES = 600L * 1024L;
+
+	/**
+	 * The tested cache.
+	 */
+	private final SchematicImageCache cache = SchematicImageCache.getInstance();
+
+	@Before
+	public void setUp() {
+		cache.clear();
+		getPreferenceStore().setValue(SchematicPreferencePage.ROTATED_IMAGES_CACHE_SIZE_PREF_ID, BUDGET);
+	}
+
+	@After
+	public void tearDown() {
+		getPreferenceStore().setToDefault(SchematicPreferencePage.ROTATED_IMAGES_CACHE_SIZE_PREF_ID);
+		cache.clear();
+	}
+
+	@Test
+	public void evictDisposesLeastRecentlyUsedImage() {
+		long evictionCount = cache.getEvictionCount();
+		Image first = cache.put("first", createImage(), IMAGE_BYTES);
+		Image second = cache.put("second", createImage(), IMAGE_BYTES);
+
+		assertNull(cache.peek("first"));
+		assertSame(second, cache.peek("second"));
+		assertTrue(first.isDisposed());
+		assertEquals(IMAGE_BYTES, cache.getSize());
+		assertEquals(evictionCount + 1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void getMarksImageRecentlyUsed() {
+		Image first = cache.put("first", createImage(), IMAGE_BYTES / 2);
+		Image second = cache.put("second", createImage(), IMAGE_BYTES / 2);
+		cache.get("first");
+		cache.put("third", createImage(), IMAGE_BYTES);
+
+		assertSame(first, cache.peek("first"));
+		assertNull(cache.peek("second"));
+		assertTrue(second.isDisposed());
+	}
+
+	@Test
+	public void evictedImageDisposedOnceReleased() {
+		Image first = cache.put("first", createImage(), IMAGE_BYTES);
+		assertTrue(cache.acquire(first));
+		cache.put("second", createImage(), IMAGE_BYTES);
+
+		// still painted by a figure
+		assertNull(cache.peek("first"));
+		assertFalse(first.isDisposed());
+		assertEquals(1, cache.getPendingDisposalCount());
+
+		cache.release(first);
+		assertTrue(first.isDisposed());
+		assertEquals(0, cache.getPendingDisposalCount());
+	}
+
+	@Test
+	public void releasedImageStaysCached() {
+		Image first = cache.put("first", createImage(), IMAGE_BYTES);
+		assertTrue(cache.acquire(first));
+		cache.release(first);
+
+		assertSame(first, cache.peek("first"));
+		assertFalse(first.isDisposed());
+	}
+
+	@Test
+	public void putExistingKeyKeepsCachedImage() {
+		Image first = cache.put("first", createImage(), IMAGE_BYTES);
+		Image duplicate = createImage();
+
+		assertSame(first, cache.put("first", duplicate, IMAGE_BYTES));
+		assertTrue(duplicate.isDisposed());
+		assertEquals(1, cache.getEntryCount());
+	}
+
+	@Test
+	public void acquireUnmanagedImage() {
+		Image image = createImage();
+		try {
+			assertFalse(cache.acquire(image));
+		} finally {
+			image.dispose();
+		}
+	}
+
+	@Test
+	public void clearKeepsPaintedImagesUntilReleased() {
+		Image painted = cache.put("painted", createImage(), IMAGE_BYTES / 2);
+		Image unpainted = cache.put("unpainted", createImage(), IMAGE_BYTES / 2);
+		assertTrue(cache.acquire(painted));
+
+		cache.clear();
+
+		assertEquals(0, cache.getEntryCount());
+		assertTrue(unpainted.isDisposed());
+		assertFalse(painted.isDisposed());
+		cache.release(painted);
+		assertTrue(painted.isDisposed());
+	}
+
+	private static Image createImage() {
+		return new Image(Display.getDefault(), 1, 1);
+	}
+
+	private static IPreferenceStore getPreferenceStore() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore();
+	}
+}
@@ -0,0 +1,106 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.junit.Test;
+
+/**
+ * Tests of the 2x2 box filter of {@link ImageDataDownsampler}. Image data
+ * needs no display. Run it with JUnit 4, SWT and the classes of the
+ * com.navalgroup.capella.schematic.design plug-in on the class path.
+ */
+public class ImageDataDownsamplerTest {
+
+	@Test
+	public void getSize() {
+		assertEquals(50, ImageDataDownsampler.getSize(100, 1));
+		assertEquals(12, ImageDataDownsampler.getSize(100, ImageDataDownsampler.MAX_LEVEL));
+		assertEquals(1, ImageDataDownsampler.getSize(3, 2));
+	}
+
+	@Test
+	public void halveAveragesBoxes() {
+		ImageData source = createDirect(32, 4, 2);
+		source.setPixel(0, 0, 0x000000);
+		source.setPixel(1, 0, 0x010203);
+		source.setPixel(0, 1, 0x020406);
+		source.setPixel(1, 1, 0x03060A);
+		source.setAlpha(0, 0, 0);
+		source.setAlpha(1, 0, 255);
+		source.setAlpha(0, 1, 255);
+		source.setAlpha(1, 1, 255);
+
+		ImageData target = ImageDataDownsampler.halve(source);
+
+		assertEquals(2, target.width);
+		assertEquals(1, target.height);
+		// each channel is the rounded average of the box
+		assertEquals(0x020305, target.getPixel(0, 0));
+		assertEquals(191, target.getAlpha(0, 0));
+	}
+
+	@Test
+	public void halveRepeatsLastRowOfOddSizes() {
+		ImageData source = createDirect(24, 2, 1);
+		source.setPixel(0, 0, 0x102030);
+		source.setPixel(1, 0, 0x304050);
+
+		ImageData target = ImageDataDownsampler.halve(source);
+
+		assertEquals(1, target.width);
+		assertEquals(1, target.height);
+		assertEquals(0x203040, target.getPixel(0, 0));
+	}
+
+	@Test
+	public void halveUniformImage() {
+		ImageData source = createDirect(24, 5, 7);
+		for (int y = 0; y < source.height; y++) {
+			for (int x = 0; x < source.width; x++) {
+				source.setPixel(x, y, 0x336699);
+			}
+		}
+
+		ImageData target = ImageDataDownsampler.halve(source);
+
+		assertEquals(2, target.width);
+		assertEquals(3, target.height);
+		for (int y = 0; y < target.height; y++) {
+			for (int x = 0; x < target.width; x++) {
+				assertEquals(0x336699, target.getPixel(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void halveIndexedImage() {
+		// indexed images are scaled by SWT, to the same size
+		RGB[] colors = { new RGB(0, 0, 0), new RGB(255, 255, 255) };
+		ImageData source = new ImageData(6, 3, 8, new PaletteData(colors));
+
+		ImageData target = ImageDataDownsampler.halve(source);
+
+		assertEquals(3, target.width);
+		assertEquals(1, target.height);
+	}
+
+	private static ImageData createDirect(int depth, int width, int height) {
+		ImageData data = new ImageData(width, height, depth, new PaletteData(0xFF0000, 0xFF00, 0xFF));
+		if (depth == 32) {
+			data.alphaData = new byte[width * height];
+		}
+		return data;
+	}
+}
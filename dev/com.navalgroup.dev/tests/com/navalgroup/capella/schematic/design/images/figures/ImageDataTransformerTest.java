@@ -0,0 +1,177 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+import org.junit.Test;
+
+/**
+ * Tests of the {@link ImageDataTransformer} kernels against a pixel by pixel
+ * reference: the horizontal symmetry if mirroring, then the clockwise
+ * rotation of the orientation. Image data needs no display. Run it with
+ * JUnit 4, SWT, Draw2D and the classes of the
+ * com.navalgroup.capella.schematic.design plug-in on the class path.
+ */
+public class ImageDataTransformerTest {
+
+	/**
+	 * Width of the test images, not a multiple of the block size.
+	 */
+	private static final int WIDTH = 70;
+
+	/**
+	 * Height of the test images, not a multiple of the block size.
+	 */
+	private static final int HEIGHT = 45;
+
+	/**
+	 * Height of the images transformed by bands, several bands of rows.
+	 */
+	private static final int TALL_HEIGHT = 300;
+
+	@Test
+	public void transformDirect32() {
+		assertTransforms(createDirect(32, WIDTH, HEIGHT, true));
+	}
+
+	@Test
+	public void transformDirect24() {
+		assertTransforms(createDirect(24, WIDTH, HEIGHT, false));
+	}
+
+	@Test
+	public void transformIndexed8() {
+		assertTransforms(createIndexed(8, true));
+	}
+
+	@Test
+	public void transformIndexed4() {
+		assertTransforms(createIndexed(4, false));
+	}
+
+	@Test
+	public void transformIndexed1() {
+		assertTransforms(createIndexed(1, true));
+	}
+
+	@Test
+	public void transformParallelMatchesTransform() {
+		ImageData source = createDirect(32, WIDTH, TALL_HEIGHT, true);
+		for (Orientation orientation : Orientation.values()) {
+			assertSameImage(ImageDataTransformer.transform(source, orientation),
+					ImageDataTransformer.transformParallel(source, orientation));
+		}
+	}
+
+	@Test
+	public void inverseRestoresSource() {
+		ImageData source = createDirect(24, WIDTH, HEIGHT, true);
+		for (Orientation orientation : Orientation.values()) {
+			ImageData transformed = ImageDataTransformer.transform(source, orientation);
+			assertSameImage(source, ImageDataTransformer.transform(transformed, orientation.inverse()));
+		}
+	}
+
+	private static void assertTransforms(ImageData source) {
+		for (Orientation orientation : Orientation.values()) {
+			assertSameImage(reference(source, orientation), ImageDataTransformer.transform(source, orientation));
+		}
+	}
+
+	private static void assertSameImage(ImageData expected, ImageData actual) {
+		assertEquals(expected.width, actual.width);
+		assertEquals(expected.height, actual.height);
+		for (int y = 0; y < expected.height; y++) {
+			for (int x = 0; x < expected.width; x++) {
+				assertEquals(expected.getPixel(x, y), actual.getPixel(x, y));
+				assertEquals(expected.getAlpha(x, y), actual.getAlpha(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Transform pixel by pixel through the public decomposition of the
+	 * orientation.
+	 */
+	private static ImageData reference(ImageData source, Orientation orientation) {
+		ImageData target = ImageDataTransformer.createTarget(source, orientation);
+		for (int y = 0; y < source.height; y++) {
+			for (int x = 0; x < source.width; x++) {
+				int mirroredX = orientation.isMirroring() ? source.width - 1 - x : x;
+				int targetX;
+				int targetY;
+				switch (orientation.getRotation()) {
+				case 90:
+					targetX = source.height - 1 - y;
+					targetY = mirroredX;
+					break;
+				case 180:
+					targetX = source.width - 1 - mirroredX;
+					targetY = source.height - 1 - y;
+					break;
+				case -90:
+					targetX = y;
+					targetY = source.width - 1 - mirroredX;
+					break;
+				default:
+					targetX = mirroredX;
+					targetY = y;
+				}
+				target.setPixel(targetX, targetY, source.getPixel(x, y));
+				if (source.alphaData != null) {
+					target.setAlpha(targetX, targetY, source.getAlpha(x, y));
+				}
+			}
+		}
+		return target;
+	}
+
+	private static ImageData createDirect(int depth, int width, int height, boolean alpha) {
+		ImageData data = new ImageData(width, height, depth, new PaletteData(0xFF0000, 0xFF00, 0xFF));
+		if (alpha) {
+			data.alphaData = new byte[width * height];
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				// distinct pixels, so that a misplaced pixel is detected
+				data.setPixel(x, y, (x << 16 | y << 8 | (x + y)) & 0xFFFFFF);
+				if (alpha) {
+					data.setAlpha(x, y, (x * 3 + y) & 0xFF);
+				}
+			}
+		}
+		return data;
+	}
+
+	private static ImageData createIndexed(int depth, boolean alpha) {
+		int colors = 1 << depth;
+		RGB[] rgbs = new RGB[colors];
+		for (int i = 0; i < colors; i++) {
+			rgbs[i] = new RGB(i, i, i);
+		}
+		ImageData data = new ImageData(WIDTH, HEIGHT, depth, new PaletteData(rgbs));
+		if (alpha) {
+			data.alphaData = new byte[WIDTH * HEIGHT];
+		}
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				data.setPixel(x, y, (x * 7 + y * 3) % colors);
+				if (alpha) {
+					data.setAlpha(x, y, (x + y * 5) & 0xFF);
+				}
+			}
+		}
+		return data;
+	}
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.draw2d.PositionConstants;
+import org.junit.Test;
+
+/**
+ * Tests of the composition of {@link Orientation}s. Run it with JUnit 4,
+ * Draw2D and the classes of the com.navalgroup.capella.schematic.design
+ * plug-in on the class path.
+ */
+public class OrientationTest {
+
+	@Test
+	public void northIsNeutral() {
+		for (Orientation orientation : Orientation.values()) {
+			assertEquals(orientation, Orientation.NORTH.compose(orientation));
+			assertEquals(orientation, orientation.compose(Orientation.NORTH));
+		}
+	}
+
+	@Test
+	public void composeIsAssociative() {
+		for (Orientation first : Orientation.values()) {
+			for (Orientation second : Orientation.values()) {
+				for (Orientation third : Orientation.values()) {
+					assertEquals(first.compose(second).compose(third), first.compose(second.compose(third)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void inverseCancelsOrientation() {
+		for (Orientation orientation : Orientation.values()) {
+			assertEquals(Orientation.NORTH, orientation.compose(orientation.inverse()));
+			assertEquals(Orientation.NORTH, orientation.inverse().compose(orientation));
+		}
+	}
+
+	@Test
+	public void composeRotations() {
+		assertEquals(Orientation.SOUTH, Orientation.EAST.compose(Orientation.EAST));
+		assertEquals(Orientation.NORTH, Orientation.EAST.compose(Orientation.WEST));
+		assertEquals(Orientation.WEST, Orientation.SOUTH.compose(Orientation.EAST));
+		assertEquals(Orientation.SOUTH, Orientation.HORIZONTAL.compose(Orientation.VERTICAL));
+		assertEquals(Orientation.TRANSPOSE, Orientation.HORIZONTAL.compose(Orientation.WEST));
+		assertEquals(Orientation.ANTI_TRANSPOSE, Orientation.HORIZONTAL.compose(Orientation.EAST));
+		assertEquals(Orientation.WEST, Orientation.EAST.inverse());
+		assertEquals(Orientation.TRANSPOSE, Orientation.TRANSPOSE.inverse());
+	}
+
+	@Test
+	public void toReachesTarget() {
+		for (Orientation from : Orientation.values()) {
+			for (Orientation target : Orientation.values()) {
+				assertEquals(target, from.compose(from.to(target)));
+			}
+		}
+	}
+
+	@Test
+	public void mirroringThenRotation() {
+		// each orientation is the horizontal symmetry if mirroring, then its
+		// rotation, as painted by the figures
+		for (Orientation orientation : Orientation.values()) {
+			Orientation mirror = orientation.isMirroring() ? Orientation.HORIZONTAL : Orientation.NORTH;
+			assertEquals(orientation, mirror.compose(getRotation(orientation.getRotation())));
+			assertEquals(orientation.getRotation() % 180 != 0, orientation.isSwappingAxes());
+		}
+	}
+
+	@Test
+	public void fromPosition() {
+		for (Orientation orientation : Orientation.values()) {
+			assertEquals(orientation, Orientation.fromPosition(orientation.getPosition()));
+		}
+		assertEquals(Orientation.NORTH, Orientation.fromPosition(PositionConstants.NONE));
+	}
+
+	private static Orientation getRotation(int degrees) {
+		Orientation rotation;
+		switch (degrees) {
+		case 90:
+			rotation = Orientation.EAST;
+			break;
+		case 180:
+			rotation = Orientation.SOUTH;
+			break;
+		case -90:
+			rotation = Orientation.WEST;
+			break;
+		default:
+			rotation = Orientation.NORTH;
+		}
+		return rotation;
+	}
+}
@@ -30,9 +30,21 @@ public class Messages {
 	@TranslatableMessage
 	public static String ConfigurationFileService_NoConfigurationFileInPreference;
 	@TranslatableMessage
+	public static String ConfigurationFileService_ConfigurationProblems;
+	@TranslatableMessage
+	public static String ConfigurationFileService_ProblemOccurrences;
+	@TranslatableMessage
+	public static String ConfigurationFileService_ReportProblemsJob;
+	@TranslatableMessage
 	public static String SchematicService_NoSessionFound;
 	@TranslatableMessage
-	public static String AbstractSchematicDNodeContainerEditPart_ImageTranslationNotAvailableOnSVGImage;
+	public static String SchematicWorkspaceImageFigure_RotationFailed;
+	@TranslatableMessage
+	public static String OrientationPrewarmJob_Name;
+	@TranslatableMessage
+	public static String PersistentImageCache_WriteFailed;
+	@TranslatableMessage
+	public static String SchematicWorkspaceImageFigure_TransformUnsupported;
 
 	static {
 		// initialize resource bundle
@@ -24,6 +24,17 @@ import org.eclipse.sirius.viewpoint.description.Viewpoint;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 
+import com.navalgroup.capella.schematic.design.images.cache.ContentHashIndex;
+import com.navalgroup.capella.schematic.design.images.cache.ImageDecoder;
+import com.navalgroup.capella.schematic.design.images.cache.ImageSourceTracker;
+import com.navalgroup.capella.schematic.design.images.cache.OrientationPrewarmJob;
+import com.navalgroup.capella.schematic.design.images.cache.PersistentImageCache;
+import com.navalgroup.capella.schematic.design.images.cache.SVGDocumentCache;
+import com.navalgroup.capella.schematic.design.images.cache.SchematicImageCache;
+import com.navalgroup.capella.schematic.design.images.figures.SVGRasterizer;
+import com.navalgroup.capella.schematic.design.services.ConfigurationFileWatcher;
+import com.navalgroup.capella.schematic.design.services.StyleDescriptionCache;
+
 /**
  * The activator class controls the plug-in life cycle.
  * 
@@ -73,6 +84,11 @@ public class SchematicDesignPlugin extends EMFPlugin {
 	 * The activator class controls the plug-in lifecycle.
 	 */
 	public static class Implementation extends EclipseUIPlugin implements BundleActivator {
+		/**
+		 * Watcher of the configuration file.
+		 */
+		private ConfigurationFileWatcher configurationFileWatcher;
+
 		/**
 		 * Returns current Capella version 
 		 */
@@ -102,6 +118,12 @@ public class SchematicDesignPlugin extends EMFPlugin {
 			viewpoints = new HashSet<Viewpoint>();
 			viewpoints.addAll(ViewpointRegistry.getInstance()
 					.registerFromPlugin("/" + PLUGIN_ID + "/description/schematic-" + getCapellaVersion() + ".odesign"));
+			configurationFileWatcher = new ConfigurationFileWatcher();
+			configurationFileWatcher.install();
+			ViewpointRegistry.getInstance().addListener(StyleDescriptionCache.getInstance());
+			ImageSourceTracker.getInstance().install();
+			OrientationPrewarmJob.getInstance().install();
+			PersistentImageCache.getInstance().install();
 		}
 
 		/**
@@ -110,6 +132,19 @@ public class SchematicDesignPlugin extends EMFPlugin {
 		 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 		 */
 		public void stop(BundleContext context) throws Exception {
+			ViewpointRegistry.getInstance().removeListener(StyleDescriptionCache.getInstance());
+			StyleDescriptionCache.getInstance().clear();
+			OrientationPrewarmJob.getInstance().uninstall();
+			ImageSourceTracker.getInstance().uninstall();
+			ImageDecoder.getInstance().clear();
+			SVGRasterizer.getInstance().clear();
+			SchematicImageCache.getInstance().clear();
+			ContentHashIndex.getInstance().clear();
+			SVGDocumentCache.getInstance().clear();
+			if (configurationFileWatcher != null) {
+				configurationFileWatcher.uninstall();
+				configurationFileWatcher = null;
+			}
 			plugin = null;
 			if (viewpoints != null) {
 				for (final Viewpoint viewpoint : viewpoints) {
@@ -0,0 +1,175 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.sirius.common.tools.api.resource.FileProvider;
+
+/**
+ * Index of the content hashes of image files, so that identical files under
+ * different paths share their images in the {@link SchematicImageCache} and
+ * the {@link PersistentImageCache}. The hash of a file is computed once, and
+ * computed again after the {@link ImageSourceTracker} reports a change of the
+ * file: getting a known hash does not access the file system. Hashes are
+ * computed out of the UI thread, by the {@link ImageDecoder} workers and the
+ * {@link OrientationPrewarmJob}, the UI thread only peeks at the known hashes.
+ */
+public final class ContentHashIndex {
+
+	/**
+	 * Digest of the file contents.
+	 */
+	private static final String DIGEST_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+
+	/**
+	 * Size of the buffer reading the files.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Byte mask.
+	 */
+	private static final int BYTE_MASK = 0xFF;
+
+	/**
+	 * The shared instance.
+	 */
+	private static final ContentHashIndex INSTANCE = new ContentHashIndex();
+
+	/**
+	 * Content hashes by normalized path.
+	 */
+	private final Map<String, ContentHash> hashes = new ConcurrentHashMap<>();
+
+	/**
+	 * Content hash of a file, valid until the file is modified.
+	 */
+	private static final class ContentHash {
+
+		/**
+		 * Hash of the content, null if the file cannot be read.
+		 */
+		private final String hash;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param hash
+		 *            String
+		 */
+		private ContentHash(String hash) {
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private ContentHashIndex() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static ContentHashIndex getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get the hash of the content of an image file.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the hash of the content or null if the file cannot be read.
+	 */
+	public String getContentHash(String path) {
+		String normalizedPath = ImageSourceTracker.normalize(path);
+		ContentHash contentHash = hashes.get(normalizedPath);
+		if (contentHash == null) {
+			// tracked first: a change during the hash invalidates it
+			ImageSourceTracker.getInstance().track(normalizedPath);
+			File file = FileProvider.getDefault().getFile(new Path(path));
+			String hash = null;
+			if (file != null && file.isFile()) {
+				hash = hash(file);
+			}
+			contentHash = new ContentHash(hash);
+			hashes.put(normalizedPath, contentHash);
+		}
+		return contentHash.hash;
+	}
+
+	/**
+	 * Get the hash of the content of an image file if it is known, without
+	 * reading the file.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the hash of the content or null if it is not computed yet or the
+	 *         file cannot be read.
+	 */
+	public String peekContentHash(String path) {
+		ContentHash contentHash = hashes.get(ImageSourceTracker.normalize(path));
+		if (contentHash == null) {
+			return null;
+		}
+		return contentHash.hash;
+	}
+
+	/**
+	 * Forget the hash of a modified file.
+	 *
+	 * @param path
+	 *            image path
+	 */
+	public void invalidate(String path) {
+		hashes.remove(ImageSourceTracker.normalize(path));
+	}
+
+	/**
+	 * Forget all the hashes.
+	 */
+	public void clear() {
+		hashes.clear();
+	}
+
+	private static String hash(File file) {
+		String hash;
+		try (InputStream input = Files.newInputStream(file.toPath())) {
+			MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read = input.read(buffer);
+			while (read >= 0) {
+				digest.update(buffer, 0, read);
+				read = input.read(buffer);
+			}
+			StringBuilder builder = new StringBuilder();
+			for (byte b : digest.digest()) {
+				builder.append(String.format("%02x", b & BYTE_MASK)); //$NON-NLS-1$
+			}
+			hash = builder.toString();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			// unreadable file, its images are keyed by path
+			hash = null;
+		}
+		return hash;
+	}
+}
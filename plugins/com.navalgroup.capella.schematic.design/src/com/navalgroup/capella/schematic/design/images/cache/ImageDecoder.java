@@ -0,0 +1,624 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.sirius.common.tools.api.resource.FileProvider;
+import org.eclipse.sirius.diagram.ui.tools.api.figure.WorkspaceImageFigure;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.RGB;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Display;
+
+import com.navalgroup.capella.schematic.design.images.figures.Orientation;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Asynchronous decoder of the images displayed by Schematic figures. While an
+ * image is decoded on a bounded pool of worker threads, figures paint a
+ * transparent placeholder of the intrinsic size of the image, read from the
+ * file header. Decoded images are stored in the {@link SchematicImageCache} and
+ * the waiting figures are notified in the UI thread. Decodes requested by
+ * painted figures, visible in the viewport, are executed first. Files which
+ * cannot be decoded are not decoded again until they change. The workers also
+ * load the images computed from the decoded ones, such as the downsampled and
+ * transformed images read from the {@link PersistentImageCache}.
+ */
+public final class ImageDecoder {
+
+	/**
+	 * Priority of the decodes requested by figures not painted yet.
+	 */
+	private static final int DEFAULT_PRIORITY = 0;
+
+	/**
+	 * Priority of the decodes requested by painted figures.
+	 */
+	private static final int VISIBLE_PRIORITY = 1;
+
+	/**
+	 * Maximum number of worker threads.
+	 */
+	private static final int MAX_THREADS = 4;
+
+	/**
+	 * Idle time before a worker thread stops, in seconds.
+	 */
+	private static final long KEEP_ALIVE_TIME = 30;
+
+	/**
+	 * Name of the worker threads.
+	 */
+	private static final String THREAD_NAME = "Schematic image decoder"; //$NON-NLS-1$
+
+	/**
+	 * Prefix of the keys of the placeholders in the {@link SchematicImageCache}.
+	 */
+	private static final String PLACEHOLDER_KEY = "placeholder?"; //$NON-NLS-1$
+
+	/**
+	 * The shared instance.
+	 */
+	private static final ImageDecoder INSTANCE = new ImageDecoder();
+
+	/**
+	 * Decode order, for tasks with the same priority.
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Worker threads.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Pending decodes by normalized path, accessed in the UI thread: the
+	 * content hash of the file, which keys the decoded image, is computed by
+	 * the decode.
+	 */
+	private final Map<String, DecodeTask> pending = new HashMap<>();
+
+	/**
+	 * Pending loads by key of the loaded image, accessed in the UI thread.
+	 */
+	private final Map<String, LoadTask> loads = new HashMap<>();
+
+	/**
+	 * Normalized paths of the files which cannot be decoded, accessed in the UI
+	 * thread.
+	 */
+	private final Set<String> failed = new HashSet<>();
+
+	/**
+	 * Sizes of the placeholders, to recognize them. The placeholders are stored
+	 * in the {@link SchematicImageCache} and disposed once evicted and released
+	 * by the figures.
+	 */
+	private final Map<Image, Point> placeholderSizes = new IdentityHashMap<>();
+
+	/**
+	 * Task of the worker threads, executed by priority then in request order.
+	 */
+	private abstract class Task implements Runnable, Comparable<Task> {
+
+		/**
+		 * Image path.
+		 */
+		protected final String path;
+
+		/**
+		 * Display creating the image.
+		 */
+		protected final Display display;
+
+		/**
+		 * Listeners notified in the UI thread when the image is ready.
+		 */
+		protected final List<Runnable> listeners = new ArrayList<>();
+
+		/**
+		 * Priority, higher first.
+		 */
+		protected volatile int priority = DEFAULT_PRIORITY;
+
+		/**
+		 * Order of the request.
+		 */
+		private final long order = sequence.incrementAndGet();
+
+		/**
+		 * Constructor.
+		 *
+		 * @param path
+		 *            String
+		 * @param display
+		 *            Display
+		 */
+		protected Task(String path, Display display) {
+			this.path = path;
+			this.display = display;
+		}
+
+		@Override
+		public int compareTo(Task other) {
+			int result = Integer.compare(other.priority, priority);
+			if (result == 0) {
+				result = Long.compare(order, other.order);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Decode of an image file.
+	 */
+	private final class DecodeTask extends Task {
+
+		/**
+		 * Image file.
+		 */
+		private final File file;
+
+		/**
+		 * Intrinsic size of the image.
+		 */
+		private final Point size;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param path
+		 *            String
+		 * @param file
+		 *            File
+		 * @param size
+		 *            Point
+		 * @param display
+		 *            Display
+		 */
+		private DecodeTask(String path, File file, Point size, Display display) {
+			super(path, display);
+			this.file = file;
+			this.size = size;
+		}
+
+		@Override
+		public void run() {
+			// hashed out of the UI thread, the decoded image is cached by content
+			ContentHashIndex.getInstance().getContentHash(path);
+			ImageData data = PersistentImageCache.getInstance().read(path, Orientation.NORTH, 0);
+			if (data == null) {
+				data = decode(path, file);
+			}
+			ImageData decoded = data;
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> decoded(this, decoded));
+			}
+		}
+	}
+
+	/**
+	 * Load of an image computed from a decoded image.
+	 */
+	private final class LoadTask extends Task {
+
+		/**
+		 * Key of the loaded image.
+		 */
+		private final String key;
+
+		/**
+		 * Computes the image data out of the UI thread.
+		 */
+		private final Supplier<ImageData> loader;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key
+		 *            String
+		 * @param path
+		 *            String
+		 * @param loader
+		 *            Supplier
+		 * @param display
+		 *            Display
+		 */
+		private LoadTask(String key, String path, Supplier<ImageData> loader, Display display) {
+			super(path, display);
+			this.key = key;
+			this.loader = loader;
+			// requested by displayed figures
+			priority = VISIBLE_PRIORITY;
+		}
+
+		@Override
+		public void run() {
+			ImageData data = loader.get();
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> loaded(this, data));
+			}
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private ImageDecoder() {
+		int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+		executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, THREAD_NAME);
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static ImageDecoder getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Check if images are decoded asynchronously.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isEnabled() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.ASYNC_DECODING_PREF_ID);
+	}
+
+	/**
+	 * Get the decoded image of a file or request its decoding, in the UI thread.
+	 *
+	 * @param path
+	 *            image path
+	 * @param listener
+	 *            notified in the UI thread when the image is decoded, may be
+	 *            null
+	 * @return the decoded image, a placeholder while decoding, the Sirius image
+	 *         not found if the file cannot be decoded, or null if the image
+	 *         cannot be decoded asynchronously.
+	 */
+	public Image getImage(String path, Runnable listener) {
+		if (isFailed(path)) {
+			return WorkspaceImageFigure.flyWeightImage((ImageDescriptor) null);
+		}
+		String key = SchematicImageCache.getKey(path, Orientation.NORTH.getPosition());
+		Image image = SchematicImageCache.getInstance().get(key);
+		if (image == null) {
+			String normalizedPath = ImageSourceTracker.normalize(path);
+			DecodeTask task = pending.get(normalizedPath);
+			if (task == null) {
+				task = createTask(path);
+				if (task != null) {
+					pending.put(normalizedPath, task);
+					executor.execute(task);
+				}
+			}
+			if (task != null) {
+				if (listener != null && !task.listeners.contains(listener)) {
+					task.listeners.add(listener);
+				}
+				image = placeholder(task.display, task.size);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Get the decoded image of a file, decode it in the UI thread if it is not
+	 * cached.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the decoded image, or null if the file is not a readable image.
+	 */
+	public Image getImageNow(String path) {
+		Image image = SchematicImageCache.getInstance()
+				.get(SchematicImageCache.getKey(path, Orientation.NORTH.getPosition()));
+		Display display = Display.getCurrent();
+		if (image == null && display != null && !isFailed(path)) {
+			ImageData data = PersistentImageCache.getInstance().read(path, Orientation.NORTH, 0);
+			File file = FileProvider.getDefault().getFile(new Path(path));
+			if (data == null && file != null && file.isFile()) {
+				data = decode(path, file);
+				if (data == null) {
+					setFailed(path);
+				}
+			}
+			if (data != null) {
+				// keyed by the content hash computed by the read
+				image = SchematicImageCache.getInstance().put(
+						SchematicImageCache.getKey(path, Orientation.NORTH.getPosition()), path,
+						new Image(display, data));
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Load an image computed from the decoded image of a file on the worker
+	 * threads, in the UI thread. Identical requests are loaded once.
+	 *
+	 * @param key
+	 *            key of the image in the {@link SchematicImageCache}
+	 * @param path
+	 *            image path
+	 * @param loader
+	 *            computes the image data out of the UI thread, returns null if
+	 *            the file cannot be decoded
+	 * @param listener
+	 *            notified in the UI thread once the image is cached, or the
+	 *            file is known not to be decodable
+	 */
+	public void load(String key, String path, Supplier<ImageData> loader, Runnable listener) {
+		Display display = Display.getCurrent();
+		if (display == null) {
+			return;
+		}
+		LoadTask task = loads.get(key);
+		if (task == null) {
+			task = new LoadTask(key, path, loader, display);
+			loads.put(key, task);
+			executor.execute(task);
+		}
+		if (!task.listeners.contains(listener)) {
+			task.listeners.add(listener);
+		}
+	}
+
+	/**
+	 * Check if a file cannot be decoded, in the UI thread.
+	 *
+	 * @param path
+	 *            image path
+	 * @return if the decoding of the file has failed, until it changes.
+	 */
+	public boolean isFailed(String path) {
+		return failed.contains(ImageSourceTracker.normalize(path));
+	}
+
+	/**
+	 * Read the image of a file in its initial orientation out of the UI
+	 * thread, from the {@link PersistentImageCache} or by decoding the file.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the image data or null if the file is not a readable image.
+	 */
+	public static ImageData readImage(String path) {
+		ImageData data = PersistentImageCache.getInstance().read(path, Orientation.NORTH, 0);
+		File file = FileProvider.getDefault().getFile(new Path(path));
+		if (data == null && file != null && file.isFile()) {
+			data = decode(path, file);
+		}
+		return data;
+	}
+
+	/**
+	 * Get the placeholder of an image without decoding it, in the UI thread.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the placeholder or null if the size of the image cannot be read.
+	 */
+	public Image getPlaceholder(String path) {
+		Image placeholder = null;
+		Display display = Display.getCurrent();
+		File file = FileProvider.getDefault().getFile(new Path(path));
+		if (display != null && file != null && file.isFile()) {
+			Optional<Point> size = ImageSizeReader.read(file);
+			if (size.isPresent()) {
+				placeholder = placeholder(display, size.get());
+			}
+		}
+		return placeholder;
+	}
+
+	/**
+	 * Check if an image is a placeholder.
+	 *
+	 * @param image
+	 *            Image, may be null
+	 * @return if the image is a placeholder.
+	 */
+	public boolean isPlaceholder(Image image) {
+		return image != null && !image.isDisposed() && placeholderSizes.containsKey(image);
+	}
+
+	/**
+	 * Get the placeholder of an image in an orientation, in the UI thread.
+	 *
+	 * @param image
+	 *            placeholder of the image, or decoded image
+	 * @param orientation
+	 *            Orientation
+	 * @return the placeholder of the oriented image.
+	 */
+	public Image getPlaceholder(Image image, Orientation orientation) {
+		Point size = placeholderSizes.get(image);
+		if (size != null && !orientation.isSwappingAxes()) {
+			return image;
+		}
+		if (size == null) {
+			Rectangle bounds = image.getBounds();
+			size = new Point(bounds.width, bounds.height);
+		}
+		if (orientation.isSwappingAxes()) {
+			size = new Point(size.y, size.x);
+		}
+		return placeholder(Display.getCurrent(), size);
+	}
+
+	/**
+	 * Decode the image of a painted figure before the images of other figures.
+	 *
+	 * @param path
+	 *            image path
+	 */
+	public void prioritize(String path) {
+		DecodeTask task = pending.get(ImageSourceTracker.normalize(path));
+		if (task != null && task.priority != VISIBLE_PRIORITY && executor.getQueue().remove(task)) {
+			task.priority = VISIBLE_PRIORITY;
+			executor.execute(task);
+		}
+	}
+
+	/**
+	 * Decode again a file which could not be decoded, in the UI thread.
+	 *
+	 * @param path
+	 *            image path
+	 */
+	public void invalidate(String path) {
+		failed.remove(ImageSourceTracker.normalize(path));
+	}
+
+	/**
+	 * Cancel pending decodes and loads and forget the files which could not be
+	 * decoded, when the plug-in stops. The placeholders are disposed with the
+	 * {@link SchematicImageCache}.
+	 */
+	public void clear() {
+		executor.getQueue().clear();
+		pending.clear();
+		loads.clear();
+		failed.clear();
+		placeholderSizes.clear();
+	}
+
+	/**
+	 * Create the decode of an image file.
+	 *
+	 * @return the task or null if the size of the image cannot be read.
+	 */
+	private DecodeTask createTask(String path) {
+		DecodeTask task = null;
+		Display display = Display.getCurrent();
+		File file = FileProvider.getDefault().getFile(new Path(path));
+		if (display != null && file != null && file.isFile()) {
+			Optional<Point> size = ImageSizeReader.read(file);
+			if (size.isPresent()) {
+				task = new DecodeTask(path, file, size.get(), display);
+			}
+		}
+		return task;
+	}
+
+	/**
+	 * Decode an image file and store it on disk.
+	 *
+	 * @return the image data or null if the file is not a readable image.
+	 */
+	private static ImageData decode(String path, File file) {
+		ImageData data;
+		try {
+			data = new ImageData(file.getAbsolutePath());
+			PersistentImageCache.getInstance().write(path, Orientation.NORTH, 0, data);
+		} catch (SWTException e) {
+			// not an image, the figure gets the Sirius image not found
+			data = null;
+		}
+		return data;
+	}
+
+	private void decoded(DecodeTask task, ImageData data) {
+		String normalizedPath = ImageSourceTracker.normalize(task.path);
+		if (pending.get(normalizedPath) != task) {
+			// cleared in the meantime
+			return;
+		}
+		pending.remove(normalizedPath);
+		if (data != null) {
+			// keyed by the content hash computed by the decode
+			String key = SchematicImageCache.getKey(task.path, Orientation.NORTH.getPosition());
+			SchematicImageCache.getInstance().put(key, task.path, new Image(task.display, data));
+		} else {
+			// the listeners get the Sirius image not found instead of decoding
+			// the file again
+			setFailed(task.path);
+		}
+		for (Runnable listener : task.listeners) {
+			listener.run();
+		}
+	}
+
+	private void loaded(LoadTask task, ImageData data) {
+		if (loads.get(task.key) != task) {
+			// cleared in the meantime
+			return;
+		}
+		loads.remove(task.key);
+		if (data != null) {
+			SchematicImageCache.getInstance().put(task.key, task.path, new Image(task.display, data));
+		} else {
+			// the listeners stop requesting the image until the file changes
+			setFailed(task.path);
+		}
+		for (Runnable listener : task.listeners) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * Record a file which cannot be decoded, until it changes.
+	 */
+	private void setFailed(String path) {
+		String normalizedPath = ImageSourceTracker.normalize(path);
+		ImageSourceTracker.getInstance().track(normalizedPath);
+		failed.add(normalizedPath);
+	}
+
+	private Image placeholder(Display display, Point size) {
+		String key = PLACEHOLDER_KEY + size.x + "x" + size.y; //$NON-NLS-1$
+		Image placeholder = SchematicImageCache.getInstance().peek(key);
+		if (placeholder == null) {
+			// forget the placeholders disposed by the cache
+			placeholderSizes.keySet().removeIf(Image::isDisposed);
+			// 1 bit transparent image: no decoding and little memory
+			ImageData data = new ImageData(size.x, size.y, 1,
+					new PaletteData(new RGB[] { new RGB(255, 255, 255), new RGB(0, 0, 0) }));
+			data.transparentPixel = 0;
+			placeholder = SchematicImageCache.getInstance().put(key, new Image(display, data),
+					(long) data.bytesPerLine * data.height);
+			placeholderSizes.put(placeholder, size);
+		}
+		return placeholder;
+	}
+}
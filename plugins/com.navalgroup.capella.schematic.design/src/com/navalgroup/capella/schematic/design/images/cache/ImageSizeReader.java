@@ -0,0 +1,166 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.eclipse.swt.graphics.Point;
+
+/**
+ * Reader of the intrinsic size of PNG, GIF, BMP and JPEG images from their
+ * headers, without decoding the pixels.
+ */
+public final class ImageSizeReader {
+
+	/**
+	 * Offset of the width in a PNG file (signature and IHDR chunk header).
+	 */
+	private static final int PNG_SIZE_OFFSET = 16;
+
+	/**
+	 * Offset of the width in a GIF file (signature and version).
+	 */
+	private static final int GIF_SIZE_OFFSET = 6;
+
+	/**
+	 * Offset of the width in a BMP file (file header and info header size).
+	 */
+	private static final int BMP_SIZE_OFFSET = 18;
+
+	/**
+	 * JPEG marker prefix.
+	 */
+	private static final int JPEG_MARKER = 0xFF;
+
+	/**
+	 * First JPEG start of frame marker.
+	 */
+	private static final int JPEG_SOF0 = 0xC0;
+
+	/**
+	 * Last JPEG start of frame marker.
+	 */
+	private static final int JPEG_SOF15 = 0xCF;
+
+	/**
+	 * JPEG define Huffman table marker, in the start of frame range.
+	 */
+	private static final int JPEG_DHT = 0xC4;
+
+	/**
+	 * JPEG arithmetic coding markers, in the start of frame range.
+	 */
+	private static final int JPEG_JPG = 0xC8;
+
+	/**
+	 * JPEG define arithmetic coding conditioning marker.
+	 */
+	private static final int JPEG_DAC = 0xCC;
+
+	/**
+	 * Byte mask.
+	 */
+	private static final int BYTE_MASK = 0xFF;
+
+	/**
+	 * Bits in a byte.
+	 */
+	private static final int BYTE_SIZE = 8;
+
+	/**
+	 * Constructor.
+	 */
+	private ImageSizeReader() {
+	}
+
+	/**
+	 * Read the intrinsic size of an image file.
+	 *
+	 * @param file
+	 *            File
+	 * @return the size of the image, empty if the format is not supported or
+	 *         the file cannot be read.
+	 */
+	public static Optional<Point> read(File file) {
+		Point size = null;
+		try (InputStream stream = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+			DataInputStream input = new DataInputStream(stream);
+			input.mark(PNG_SIZE_OFFSET);
+			int first = input.readUnsignedByte();
+			int second = input.readUnsignedByte();
+			input.reset();
+			if (first == 0x89 && second == 'P') {
+				skip(input, PNG_SIZE_OFFSET);
+				size = new Point(input.readInt(), input.readInt());
+			} else if (first == 'G' && second == 'I') {
+				skip(input, GIF_SIZE_OFFSET);
+				size = new Point(readLittleEndianShort(input), readLittleEndianShort(input));
+			} else if (first == 'B' && second == 'M') {
+				skip(input, BMP_SIZE_OFFSET);
+				size = new Point(readLittleEndianInt(input), Math.abs(readLittleEndianInt(input)));
+			} else if (first == JPEG_MARKER && second == 0xD8) {
+				skip(input, 2);
+				size = readJpegSize(input);
+			}
+		} catch (IOException e) {
+			// unreadable or truncated file, the image will be decoded synchronously
+			size = null;
+		}
+		if (size == null || size.x <= 0 || size.y <= 0) {
+			return Optional.empty();
+		}
+		return Optional.of(size);
+	}
+
+	private static Point readJpegSize(DataInputStream input) throws IOException {
+		while (true) {
+			int marker = input.readUnsignedByte();
+			while (marker == JPEG_MARKER) {
+				marker = input.readUnsignedByte();
+			}
+			int length = input.readUnsignedShort();
+			if (marker >= JPEG_SOF0 && marker <= JPEG_SOF15 && marker != JPEG_DHT && marker != JPEG_JPG
+					&& marker != JPEG_DAC) {
+				// sample precision, then height and width
+				input.readUnsignedByte();
+				int height = input.readUnsignedShort();
+				int width = input.readUnsignedShort();
+				return new Point(width, height);
+			}
+			if (length < 2) {
+				throw new IOException();
+			}
+			skip(input, length - 2);
+		}
+	}
+
+	private static void skip(DataInputStream input, int count) throws IOException {
+		input.readFully(new byte[count]);
+	}
+
+	private static int readLittleEndianShort(DataInputStream input) throws IOException {
+		int low = input.readUnsignedByte();
+		return low | input.readUnsignedByte() << BYTE_SIZE;
+	}
+
+	private static int readLittleEndianInt(DataInputStream input) throws IOException {
+		int value = 0;
+		for (int i = 0; i < 4; i++) {
+			value |= (input.readUnsignedByte() & BYTE_MASK) << (BYTE_SIZE * i);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,207 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.swt.widgets.Display;
+
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+
+/**
+ * Tracker of the modification stamps of the workspace images used by Schematic
+ * figures. When a tracked image file changes, the images computed from it are
+ * invalidated in the {@link SchematicImageCache}, its content hash in the
+ * {@link ContentHashIndex}, its SVG document in the
+ * {@link SVGDocumentCache}, a failed decoding is retried by the
+ * {@link ImageDecoder}, and the listeners of the file are notified in the UI
+ * thread.
+ */
+public final class ImageSourceTracker implements IResourceChangeListener {
+
+	/**
+	 * The shared instance.
+	 */
+	private static final ImageSourceTracker INSTANCE = new ImageSourceTracker();
+
+	/**
+	 * Modification stamps of the tracked files by normalized path.
+	 */
+	private final Map<String, Long> stamps = new ConcurrentHashMap<>();
+
+	/**
+	 * Listeners by normalized path.
+	 */
+	private final Map<String, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	private ImageSourceTracker() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static ImageSourceTracker getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Normalize an image path as a workspace full path.
+	 *
+	 * @param path
+	 *            String
+	 * @return the normalized path.
+	 */
+	public static String normalize(String path) {
+		return new Path(path).makeAbsolute().toString();
+	}
+
+	/**
+	 * Install the tracker.
+	 */
+	public void install() {
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Uninstall the tracker.
+	 */
+	public void uninstall() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		stamps.clear();
+		listeners.clear();
+	}
+
+	/**
+	 * Record the current modification stamp of an image file, if not already
+	 * tracked.
+	 *
+	 * @param path
+	 *            image path
+	 */
+	public void track(String path) {
+		String normalizedPath = normalize(path);
+		if (!stamps.containsKey(normalizedPath)) {
+			stamps.put(normalizedPath, getStamp(normalizedPath));
+		}
+	}
+
+	/**
+	 * Get the modification stamp of an image file, updated from the workspace
+	 * resource deltas.
+	 *
+	 * @param path
+	 *            image path
+	 * @return the modification stamp.
+	 */
+	public long getModificationStamp(String path) {
+		String normalizedPath = normalize(path);
+		track(normalizedPath);
+		return stamps.getOrDefault(normalizedPath, IResource.NULL_STAMP);
+	}
+
+	/**
+	 * Add a listener notified in the UI thread when an image file changes.
+	 *
+	 * @param path
+	 *            image path
+	 * @param listener
+	 *            Runnable
+	 */
+	public void addListener(String path, Runnable listener) {
+		String normalizedPath = normalize(path);
+		track(normalizedPath);
+		listeners.computeIfAbsent(normalizedPath, key -> new CopyOnWriteArraySet<>()).add(listener);
+	}
+
+	/**
+	 * Remove a listener.
+	 *
+	 * @param path
+	 *            image path
+	 * @param listener
+	 *            Runnable
+	 */
+	public void removeListener(String path, Runnable listener) {
+		Set<Runnable> pathListeners = listeners.get(normalize(path));
+		if (pathListeners != null) {
+			pathListeners.remove(listener);
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null || stamps.isEmpty()) {
+			return;
+		}
+		List<String> changedPaths = new ArrayList<>();
+		try {
+			event.getDelta().accept(delta -> {
+				IResource resource = delta.getResource();
+				if (resource.getType() == IResource.FILE) {
+					String path = resource.getFullPath().toString();
+					Long stamp = stamps.get(path);
+					if (stamp != null && stamp.longValue() != resource.getModificationStamp()) {
+						stamps.put(path, resource.getModificationStamp());
+						changedPaths.add(path);
+					}
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			SchematicDesignPlugin.getPlugin().logWarning(e.getMessage(), e);
+		}
+		if (!changedPaths.isEmpty()) {
+			Display display = Display.getDefault();
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> sourcesChanged(changedPaths));
+			}
+		}
+	}
+
+	private void sourcesChanged(List<String> changedPaths) {
+		for (String path : changedPaths) {
+			// the images keyed by the previous content hash first
+			SchematicImageCache.getInstance().invalidate(path);
+			ContentHashIndex.getInstance().invalidate(path);
+			SVGDocumentCache.getInstance().invalidate(path);
+			ImageDecoder.getInstance().invalidate(path);
+			Set<Runnable> pathListeners = listeners.get(path);
+			if (pathListeners != null) {
+				for (Runnable listener : pathListeners) {
+					listener.run();
+				}
+			}
+		}
+	}
+
+	private static long getStamp(String normalizedPath) {
+		IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(normalizedPath);
+		if (resource == null) {
+			return IResource.NULL_STAMP;
+		}
+		return resource.getModificationStamp();
+	}
+}
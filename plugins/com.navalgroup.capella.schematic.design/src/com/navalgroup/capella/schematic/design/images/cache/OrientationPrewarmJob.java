@@ -0,0 +1,260 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.sirius.business.api.session.Session;
+import org.eclipse.sirius.business.api.session.SessionListener;
+import org.eclipse.sirius.business.api.session.SessionManager;
+import org.eclipse.sirius.business.api.session.SessionManagerListener;
+import org.eclipse.sirius.common.tools.api.resource.FileProvider;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.widgets.Display;
+
+import com.navalgroup.capella.schematic.design.Messages;
+import com.navalgroup.capella.schematic.design.images.figures.ImageDataTransformer;
+import com.navalgroup.capella.schematic.design.images.figures.Orientation;
+import com.navalgroup.capella.schematic.design.images.figures.SchematicWorkspaceImageFigure;
+import com.navalgroup.capella.schematic.design.services.ConfigurationFileServices;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Low priority job computing all the orientations of the images in the
+ * {@link SchematicImageCache}, so that interactive rotations hit the cache. It
+ * is enabled by a preference and requested when an image is first displayed
+ * or when a session is opened. The job stops when the cache budget is reached
+ * and can be cancelled.
+ */
+public final class OrientationPrewarmJob extends Job {
+
+	/**
+	 * Estimated number of bytes per pixel of a native image.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/**
+	 * SVG file extension, SVG images are not rotated.
+	 */
+	private static final String SVG_EXTENSION = ".svg";
+
+	/**
+	 * The shared instance.
+	 */
+	private static final OrientationPrewarmJob INSTANCE = new OrientationPrewarmJob();
+
+	/**
+	 * Image paths to prepare.
+	 */
+	private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Normalized image paths already requested.
+	 */
+	private final Set<String> requested = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Bytes of the images computed but not yet stored in the cache.
+	 */
+	private final AtomicLong pendingBytes = new AtomicLong();
+
+	/**
+	 * Listener requesting the images of the configuration file when a session
+	 * is opened.
+	 */
+	private final SessionManagerListener sessionListener = new SessionManagerListener.Stub() {
+		@Override
+		public void notify(Session updated, int notification) {
+			if (notification == SessionListener.OPENED && isEnabled()) {
+				prewarm(ConfigurationFileServices.getConfigurationSnapshot().getImageIndex().getImagePaths());
+			}
+		}
+	};
+
+	/**
+	 * Constructor.
+	 */
+	private OrientationPrewarmJob() {
+		super(Messages.OrientationPrewarmJob_Name);
+		setPriority(DECORATE);
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static OrientationPrewarmJob getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Check if the orientations are prepared in background.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isEnabled() {
+		// no transformed images when they are transformed at paint time
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.PREWARM_ORIENTATIONS_PREF_ID)
+				&& !SchematicWorkspaceImageFigure.isPaintTimeTransform();
+	}
+
+	/**
+	 * Listen to opened sessions.
+	 */
+	public void install() {
+		SessionManager.INSTANCE.addSessionsListener(sessionListener);
+	}
+
+	/**
+	 * Stop listening to sessions and cancel the job.
+	 */
+	public void uninstall() {
+		SessionManager.INSTANCE.removeSessionsListener(sessionListener);
+		cancel();
+		queue.clear();
+		requested.clear();
+	}
+
+	/**
+	 * Request the orientations of an image, if enabled and not already
+	 * requested.
+	 *
+	 * @param path
+	 *            image path
+	 */
+	public void prewarm(String path) {
+		if (isEnabled() && !path.toLowerCase(Locale.ENGLISH).endsWith(SVG_EXTENSION)
+				&& requested.add(ImageSourceTracker.normalize(path))) {
+			queue.add(path);
+			schedule();
+		}
+	}
+
+	/**
+	 * Request the orientations of images.
+	 *
+	 * @param paths
+	 *            image paths
+	 */
+	public void prewarm(Collection<String> paths) {
+		for (String path : paths) {
+			prewarm(path);
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		IStatus status = Status.OK_STATUS;
+		Display display = Display.getDefault();
+		String path = queue.poll();
+		while (path != null) {
+			if (monitor.isCanceled()) {
+				// cancelled images may be requested again
+				requested.clear();
+				queue.clear();
+				status = Status.CANCEL_STATUS;
+			} else if (!prewarm(display, path, monitor)) {
+				// the cache is full, do not evict images for orientations which may never be used,
+				// the dropped images may be requested again
+				requested.remove(ImageSourceTracker.normalize(path));
+				String dropped = queue.poll();
+				while (dropped != null) {
+					requested.remove(ImageSourceTracker.normalize(dropped));
+					dropped = queue.poll();
+				}
+			}
+			path = queue.poll();
+		}
+		return status;
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == OrientationPrewarmJob.class;
+	}
+
+	/**
+	 * Compute the missing orientations of an image.
+	 *
+	 * @return false if the cache budget is reached.
+	 */
+	private boolean prewarm(Display display, String path, IProgressMonitor monitor) {
+		ImageData north = load(path);
+		boolean withinBudget = true;
+		if (north != null) {
+			long bytes = (long) north.width * north.height * BYTES_PER_PIXEL;
+			SchematicImageCache cache = SchematicImageCache.getInstance();
+			for (Orientation orientation : Orientation.values()) {
+				if (!withinBudget || monitor.isCanceled() || display.isDisposed()) {
+					break;
+				}
+				String key = SchematicImageCache.getKey(path, orientation.getPosition());
+				if (orientation == Orientation.NORTH || cache.peek(key) != null) {
+					continue;
+				}
+				if (cache.getSize() + pendingBytes.get() + bytes > cache.getBudget()) {
+					withinBudget = false;
+				} else {
+					ImageData data = PersistentImageCache.getInstance().read(path, orientation, 0);
+					if (data == null) {
+						data = ImageDataTransformer.transform(north, orientation);
+						PersistentImageCache.getInstance().write(path, orientation, 0, data);
+					}
+					ImageData image = data;
+					pendingBytes.addAndGet(bytes);
+					display.asyncExec(() -> {
+						pendingBytes.addAndGet(-bytes);
+						if (cache.peek(key) == null) {
+							cache.put(key, path, new Image(display, image));
+						}
+					});
+				}
+			}
+		}
+		return withinBudget;
+	}
+
+	/**
+	 * Decode an image file out of the UI thread.
+	 *
+	 * @return the image data or null if the file is not a readable image.
+	 */
+	private static ImageData load(String path) {
+		ImageData data = PersistentImageCache.getInstance().read(path, Orientation.NORTH, 0);
+		File file = FileProvider.getDefault().getFile(new Path(path));
+		if (data == null && file != null && file.isFile()) {
+			try {
+				data = new ImageData(file.getAbsolutePath());
+				PersistentImageCache.getInstance().write(path, Orientation.NORTH, 0, data);
+			} catch (SWTException e) {
+				// not an image, the figure reports it
+				data = null;
+			}
+		}
+		return data;
+	}
+}
@@ -0,0 +1,421 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+import org.eclipse.swt.graphics.RGB;
+
+import com.navalgroup.capella.schematic.design.Messages;
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+import com.navalgroup.capella.schematic.design.images.figures.Orientation;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Persistent cache of the decoded, transformed and downsampled images, stored
+ * in the state location of the plug-in so that they survive a restart. Each
+ * image is a raw uncompressed file, read back in a single channel read, named
+ * after the content hash of the source file, the orientation and the
+ * level of detail. Files are written atomically out of the UI thread, the
+ * least recently used ones are deleted when the size cap is exceeded, and
+ * missing or corrupted files are ignored: the directory can be deleted at any
+ * time. Temporary files left by an interrupted write are deleted at startup.
+ */
+public final class PersistentImageCache {
+
+	/**
+	 * Name of the cache directory in the state location.
+	 */
+	private static final String DIRECTORY_NAME = "images"; //$NON-NLS-1$
+
+	/**
+	 * Extension of the cached image files.
+	 */
+	private static final String FILE_EXTENSION = ".img"; //$NON-NLS-1$
+
+	/**
+	 * Extension of the files being written.
+	 */
+	private static final String TEMP_FILE_EXTENSION = ".tmp"; //$NON-NLS-1$
+
+	/**
+	 * First bytes of a cached image file: "SCIM".
+	 */
+	private static final int MAGIC = 0x5343494D;
+
+	/**
+	 * Version of the file format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Size of the header, without the palette.
+	 */
+	private static final int HEADER_SIZE = 64;
+
+	/**
+	 * Number of bytes per RGB palette entry.
+	 */
+	private static final int RGB_SIZE = 3;
+
+	/**
+	 * Number of bytes in a megabyte.
+	 */
+	private static final long MEGABYTE = 1024L * 1024L;
+
+	/**
+	 * Byte mask.
+	 */
+	private static final int BYTE_MASK = 0xFF;
+
+	/**
+	 * The shared instance.
+	 */
+	private static final PersistentImageCache INSTANCE = new PersistentImageCache();
+
+	/**
+	 * Estimated bytes of the cache files, -1 until the directory is scanned.
+	 * Files deleted or replaced outside of the eviction make it an upper
+	 * bound, so it is computed again from the directory before evicting.
+	 */
+	private long size = -1;
+
+	/**
+	 * Constructor.
+	 */
+	private PersistentImageCache() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static PersistentImageCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Check if images are stored on disk.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isEnabled() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.PERSISTENT_CACHE_PREF_ID);
+	}
+
+	/**
+	 * Delete the temporary files left by writes interrupted by a crash, out of
+	 * the UI thread. Files created by the writes started meanwhile are kept.
+	 */
+	public void install() {
+		long startTime = System.currentTimeMillis();
+		CompletableFuture.runAsync(() -> {
+			File[] files = getDirectory().listFiles((directory, name) -> name.endsWith(TEMP_FILE_EXTENSION));
+			if (files != null) {
+				for (File file : files) {
+					if (file.lastModified() < startTime) {
+						delete(file);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Read a cached image.
+	 *
+	 * @param path
+	 *            path of the source image file
+	 * @param orientation
+	 *            Orientation
+	 * @param level
+	 *            level of detail, 0 for the full size image
+	 * @return the image data or null if the image is not cached or the cache is
+	 *         disabled.
+	 */
+	public ImageData read(String path, Orientation orientation, int level) {
+		ImageData data = null;
+		File file = isEnabled() ? getFile(path, orientation, level) : null;
+		if (file != null && file.isFile()) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				data = decode(readFile(channel));
+			} catch (IOException | BufferUnderflowException | IllegalArgumentException | SWTException e) {
+				// deleted or corrupted file, the image is computed again
+				data = null;
+			}
+			if (data == null) {
+				delete(file);
+			} else {
+				touch(file);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Write an image to the cache out of the calling thread, if the cache is
+	 * enabled.
+	 *
+	 * @param path
+	 *            path of the source image file
+	 * @param orientation
+	 *            Orientation
+	 * @param level
+	 *            level of detail, 0 for the full size image
+	 * @param data
+	 *            ImageData, not modified afterwards
+	 */
+	public void write(String path, Orientation orientation, int level, ImageData data) {
+		if (isEnabled() && isSupported(data)) {
+			CompletableFuture.runAsync(() -> {
+				File file = getFile(path, orientation, level);
+				if (file != null && !file.isFile()) {
+					writeFile(file, data);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Read a whole file in a heap buffer, the file is not mapped so that it is
+	 * not locked once the channel is closed.
+	 */
+	private static ByteBuffer readFile(FileChannel channel) throws IOException {
+		long length = channel.size();
+		if (length > Integer.MAX_VALUE) {
+			throw new BufferUnderflowException();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		int read = 0;
+		while (read >= 0 && buffer.hasRemaining()) {
+			read = channel.read(buffer);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static File getFile(String path, Orientation orientation, int level) {
+		File file = null;
+		String contentHash = ContentHashIndex.getInstance().getContentHash(path);
+		if (contentHash != null) {
+			// identical files under different paths share their cached images
+			String name = contentHash + '-' + orientation.getPosition() + '-' + level;
+			file = new File(getDirectory(), name + FILE_EXTENSION);
+		}
+		return file;
+	}
+
+	private static File getDirectory() {
+		return SchematicDesignPlugin.getPlugin().getStateLocation().append(DIRECTORY_NAME).toFile();
+	}
+
+	private static boolean isSupported(ImageData data) {
+		return data.maskData == null && (data.palette.isDirect || data.palette.colors != null);
+	}
+
+	/**
+	 * Write a file through a temporary file renamed once complete, then delete
+	 * the least recently used files if the size cap is exceeded.
+	 */
+	private void writeFile(File file, ImageData data) {
+		File temp = null;
+		try {
+			File directory = file.getParentFile();
+			Files.createDirectories(directory.toPath());
+			temp = File.createTempFile(file.getName(), TEMP_FILE_EXTENSION, directory);
+			try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = encode(data);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			temp = null;
+			added(file.length());
+		} catch (IOException e) {
+			SchematicDesignPlugin.getPlugin()
+					.logWarning(String.format(Messages.PersistentImageCache_WriteFailed, file.getPath()), e);
+		} finally {
+			if (temp != null) {
+				delete(temp);
+			}
+		}
+	}
+
+	private synchronized void added(long bytes) {
+		if (size >= 0) {
+			size += bytes;
+		}
+		long budget = SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getInt(SchematicPreferencePage.PERSISTENT_CACHE_SIZE_PREF_ID) * MEGABYTE;
+		if (size < 0 || size > budget) {
+			// the estimate is checked against the directory before evicting
+			File[] files = listFiles();
+			size = 0;
+			for (File file : files) {
+				size += file.length();
+			}
+			if (size > budget) {
+				size = evict(files, size, budget);
+			}
+		}
+	}
+
+	/**
+	 * Delete the least recently used files until the size is within the
+	 * budget.
+	 *
+	 * @param files
+	 *            cache files, sorted by this method
+	 * @param size
+	 *            bytes of the cache files
+	 * @param budget
+	 *            maximum bytes of the cache files
+	 * @return the bytes of the remaining files.
+	 */
+	static long evict(File[] files, long size, long budget) {
+		long remaining = size;
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (int i = 0; i < files.length && remaining > budget; i++) {
+			long length = files[i].length();
+			if (delete(files[i])) {
+				remaining -= length;
+			}
+		}
+		return remaining;
+	}
+
+	private static File[] listFiles() {
+		File[] files = getDirectory().listFiles((directory, name) -> name.endsWith(FILE_EXTENSION));
+		if (files == null) {
+			return new File[0];
+		}
+		return files;
+	}
+
+	private static ByteBuffer encode(ImageData data) {
+		PaletteData palette = data.palette;
+		int paletteSize = palette.isDirect ? 0 : palette.colors.length;
+		int alphaLength = data.alphaData == null ? 0 : data.alphaData.length;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + paletteSize * RGB_SIZE + data.data.length + alphaLength);
+		buffer.putInt(MAGIC).putInt(VERSION);
+		buffer.putInt(data.width).putInt(data.height).putInt(data.depth).putInt(data.scanlinePad);
+		buffer.putInt(data.transparentPixel).putInt(data.alpha);
+		if (palette.isDirect) {
+			buffer.putInt(-1).putInt(palette.redMask).putInt(palette.greenMask).putInt(palette.blueMask);
+		} else {
+			buffer.putInt(paletteSize).putInt(0).putInt(0).putInt(0);
+			for (RGB rgb : palette.colors) {
+				buffer.put((byte) rgb.red).put((byte) rgb.green).put((byte) rgb.blue);
+			}
+		}
+		buffer.putInt(data.data.length).put(data.data);
+		buffer.putInt(data.alphaData == null ? -1 : alphaLength);
+		if (data.alphaData != null) {
+			buffer.put(data.alphaData);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Decode a cached image file.
+	 *
+	 * @return the image data or null if the file is not a valid image file.
+	 */
+	private static ImageData decode(ByteBuffer buffer) {
+		ImageData data = null;
+		if (buffer.getInt() == MAGIC && buffer.getInt() == VERSION) {
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			int depth = buffer.getInt();
+			int scanlinePad = buffer.getInt();
+			int transparentPixel = buffer.getInt();
+			int alpha = buffer.getInt();
+			PaletteData palette = decodePalette(buffer);
+			data = new ImageData(width, height, depth, palette, scanlinePad, readBytes(buffer, buffer.getInt()));
+			data.transparentPixel = transparentPixel;
+			data.alpha = alpha;
+			int alphaLength = buffer.getInt();
+			if (alphaLength >= 0) {
+				data.alphaData = readBytes(buffer, alphaLength);
+			}
+		}
+		return data;
+	}
+
+	private static byte[] readBytes(ByteBuffer buffer, int length) {
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static PaletteData decodePalette(ByteBuffer buffer) {
+		int paletteSize = buffer.getInt();
+		int redMask = buffer.getInt();
+		int greenMask = buffer.getInt();
+		int blueMask = buffer.getInt();
+		if (paletteSize < 0) {
+			return new PaletteData(redMask, greenMask, blueMask);
+		}
+		if (paletteSize * RGB_SIZE > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		RGB[] colors = new RGB[paletteSize];
+		for (int i = 0; i < paletteSize; i++) {
+			colors[i] = new RGB(buffer.get() & BYTE_MASK, buffer.get() & BYTE_MASK, buffer.get() & BYTE_MASK);
+		}
+		return new PaletteData(colors);
+	}
+
+	/**
+	 * Record the use of a file, the least recently used files are deleted
+	 * first.
+	 */
+	private static void touch(File file) {
+		// ignored if the file has been deleted in the meantime
+		file.setLastModified(System.currentTimeMillis());
+	}
+
+	private static boolean delete(File file) {
+		boolean deleted;
+		try {
+			deleted = Files.deleteIfExists(file.toPath());
+		} catch (IOException e) {
+			// locked file, deleted later
+			deleted = false;
+		}
+		return deleted;
+	}
+}
@@ -0,0 +1,179 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+import org.w3c.dom.Document;
+
+/**
+ * Cache of the resolved URIs of the SVG files, of their parsed documents and
+ * of their aspect ratios, shared by all Schematic SVG figures, so that a symbol
+ * displayed by many nodes is resolved and parsed once. Documents are softly
+ * referenced, so that they can be reclaimed under memory pressure and parsed
+ * again on demand. Entries are invalidated by the {@link ImageSourceTracker}
+ * when the workspace file changes.
+ */
+public final class SVGDocumentCache {
+
+	/**
+	 * Aspect ratio not computed yet.
+	 */
+	private static final double UNKNOWN_ASPECT_RATIO = -1;
+
+	/**
+	 * The shared instance.
+	 */
+	private static final SVGDocumentCache INSTANCE = new SVGDocumentCache();
+
+	/**
+	 * Resolved URIs by normalized path.
+	 */
+	private final Map<String, Optional<String>> uris = new HashMap<>();
+
+	/**
+	 * Parsed documents and aspect ratios by URI.
+	 */
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	/**
+	 * Parsed document.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Document, reclaimed under memory pressure.
+		 */
+		private SoftReference<Document> document;
+
+		/**
+		 * Aspect ratio of the document.
+		 */
+		private double aspectRatio = UNKNOWN_ASPECT_RATIO;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param document
+		 *            Document
+		 */
+		private Entry(Document document) {
+			this.document = new SoftReference<>(document);
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private SVGDocumentCache() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static SVGDocumentCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get the URI of an SVG file, resolved once until the file changes.
+	 *
+	 * @param path
+	 *            workspace path of the file
+	 * @param resolver
+	 *            resolver of the URI
+	 * @return the URI or empty if the file cannot be read.
+	 */
+	public synchronized Optional<String> getUri(String path, Function<String, Optional<String>> resolver) {
+		String normalizedPath = ImageSourceTracker.normalize(path);
+		Optional<String> uri = uris.get(normalizedPath);
+		if (uri == null) {
+			ImageSourceTracker.getInstance().track(normalizedPath);
+			uri = resolver.apply(path);
+			uris.put(normalizedPath, uri);
+		}
+		return uri;
+	}
+
+	/**
+	 * Get a parsed document, parse it if it is not cached.
+	 *
+	 * @param uri
+	 *            URI of the file
+	 * @param parser
+	 *            parser of the document, returning null on failure
+	 * @return the document or null if it cannot be parsed.
+	 */
+	public synchronized Document getDocument(String uri, Function<String, Document> parser) {
+		Entry entry = entries.get(uri);
+		Document document = null;
+		if (entry != null) {
+			document = entry.document.get();
+		}
+		if (document == null) {
+			document = parser.apply(uri);
+			if (document != null && entry != null) {
+				// reclaimed, the aspect ratio is kept
+				entry.document = new SoftReference<>(document);
+			} else if (document != null) {
+				entries.put(uri, new Entry(document));
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Get the aspect ratio of a parsed document, computed once per document.
+	 *
+	 * @param uri
+	 *            URI of the file
+	 * @param computer
+	 *            computer of the aspect ratio
+	 * @return the aspect ratio.
+	 */
+	public synchronized double getAspectRatio(String uri, DoubleSupplier computer) {
+		Entry entry = entries.get(uri);
+		if (entry == null) {
+			return computer.getAsDouble();
+		}
+		if (entry.aspectRatio == UNKNOWN_ASPECT_RATIO) {
+			entry.aspectRatio = computer.getAsDouble();
+		}
+		return entry.aspectRatio;
+	}
+
+	/**
+	 * Forget the URI and the document of a file.
+	 *
+	 * @param path
+	 *            workspace path of the file
+	 */
+	public synchronized void invalidate(String path) {
+		Optional<String> uri = uris.remove(ImageSourceTracker.normalize(path));
+		if (uri != null && uri.isPresent()) {
+			entries.remove(uri.get());
+		}
+	}
+
+	/**
+	 * Forget all the URIs and documents.
+	 */
+	public synchronized void clear() {
+		uris.clear();
+		entries.clear();
+	}
+}
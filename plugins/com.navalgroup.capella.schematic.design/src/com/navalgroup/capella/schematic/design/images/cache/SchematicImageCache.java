@@ -0,0 +1,462 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.cache;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Rectangle;
+
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Cache of the images computed by Schematic figures (rotated images) and of the
+ * placeholders of the images being decoded. The cache is bounded by a byte
+ * budget taken from the preferences and evicts the least recently used images
+ * first. Figures acquire the images they paint and release them afterwards: an
+ * evicted image is disposed only once no figure paints it anymore. Images
+ * computed from a source file are invalidated when the file changes, see
+ * {@link ImageSourceTracker}. Images are keyed by the content of their source
+ * file, so that identical files under different paths share their images, see
+ * {@link ContentHashIndex}.
+ */
+public final class SchematicImageCache {
+
+	/**
+	 * Estimated number of bytes per pixel of a native image.
+	 */
+	private static final int BYTES_PER_PIXEL = 4;
+
+	/**
+	 * Number of bytes in a megabyte.
+	 */
+	private static final long MEGABYTE = 1024L * 1024L;
+
+	/**
+	 * Prefix of the content keys which are content hashes.
+	 */
+	private static final String CONTENT_HASH_PREFIX = "#"; //$NON-NLS-1$
+
+	/**
+	 * The shared instance.
+	 */
+	private static final SchematicImageCache INSTANCE = new SchematicImageCache();
+
+	/**
+	 * Cached images by key, in access order.
+	 */
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Cached and evicted images not disposed yet.
+	 */
+	private final Map<Image, Entry> liveEntries = new IdentityHashMap<>();
+
+	/**
+	 * Bytes of the cached images.
+	 */
+	private long size;
+
+	/**
+	 * Number of images found in the cache.
+	 */
+	private long hitCount;
+
+	/**
+	 * Number of images not found in the cache.
+	 */
+	private long missCount;
+
+	/**
+	 * Number of evicted images.
+	 */
+	private long evictionCount;
+
+	/**
+	 * Cached image.
+	 */
+	private static final class Entry {
+
+		/**
+		 * Image.
+		 */
+		private final Image image;
+
+		/**
+		 * Normalized path of the source image file, null for the images not
+		 * computed from a file.
+		 */
+		private final String sourcePath;
+
+		/**
+		 * Estimated bytes of the image.
+		 */
+		private final long bytes;
+
+		/**
+		 * Number of figures painting the image.
+		 */
+		private int references;
+
+		/**
+		 * Whether the image has been evicted from the cache.
+		 */
+		private boolean evicted;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param sourcePath
+		 *            String
+		 * @param image
+		 *            Image
+		 * @param bytes
+		 *            long
+		 */
+		private Entry(String sourcePath, Image image, long bytes) {
+			this.sourcePath = sourcePath;
+			this.image = image;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private SchematicImageCache() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static SchematicImageCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get the key of the content of a source file: its content hash, or its
+	 * normalized path until the hash is computed out of the UI thread or if the
+	 * file cannot be read. The file is never read.
+	 *
+	 * @param path
+	 *            path of the source image file
+	 * @return the key of the content.
+	 */
+	public static String getContentKey(String path) {
+		String contentHash = ContentHashIndex.getInstance().peekContentHash(path);
+		if (contentHash == null) {
+			return ImageSourceTracker.normalize(path);
+		}
+		return CONTENT_HASH_PREFIX + contentHash;
+	}
+
+	/**
+	 * Check if a content key is the hash of the content, which does not change
+	 * until the source file changes.
+	 *
+	 * @param contentKey
+	 *            key of the content, see {@link #getContentKey(String)}
+	 * @return if the key is a content hash.
+	 */
+	public static boolean isContentHash(String contentKey) {
+		return contentKey.startsWith(CONTENT_HASH_PREFIX);
+	}
+
+	/**
+	 * Get the key of an image from the key of the content of its source file.
+	 *
+	 * @param contentKey
+	 *            key of the content, see {@link #getContentKey(String)}
+	 * @param position
+	 *            PositionConstants position
+	 * @param level
+	 *            level of detail, 0 for the full size image
+	 * @return the key of the image.
+	 */
+	public static String toKey(String contentKey, int position, int level) {
+		if (level == 0) {
+			return contentKey + "?" + position;
+		}
+		return contentKey + "?" + position + "@" + level;
+	}
+
+	/**
+	 * Get the key of an image in a position.
+	 *
+	 * @param path
+	 *            path of the source image file
+	 * @param position
+	 *            PositionConstants position
+	 * @return the key of the image.
+	 */
+	public static String getKey(String path, int position) {
+		return toKey(getContentKey(path), position, 0);
+	}
+
+	/**
+	 * Get the key of an image in a position at a level of detail.
+	 *
+	 * @param path
+	 *            path of the source image file
+	 * @param position
+	 *            PositionConstants position
+	 * @param level
+	 *            level of detail, 0 for the full size image
+	 * @return the key of the image.
+	 */
+	public static String getKey(String path, int position, int level) {
+		return toKey(getContentKey(path), position, level);
+	}
+
+	/**
+	 * Get a cached image.
+	 *
+	 * @param key
+	 *            String
+	 * @return the cached image or null.
+	 */
+	public synchronized Image get(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.image;
+	}
+
+	/**
+	 * Get a cached image without counting a hit or a miss.
+	 *
+	 * @param key
+	 *            String
+	 * @return the cached image or null.
+	 */
+	public synchronized Image peek(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		return entry.image;
+	}
+
+	/**
+	 * Store an image, evict least recently used images if the budget is
+	 * exceeded. The cache takes the ownership of the image.
+	 *
+	 * @param key
+	 *            String
+	 * @param sourcePath
+	 *            path of the source image file
+	 * @param image
+	 *            Image
+	 * @return the cached image, the existing one if the key was already cached.
+	 */
+	public synchronized Image put(String key, String sourcePath, Image image) {
+		String normalizedPath = ImageSourceTracker.normalize(sourcePath);
+		ImageSourceTracker.getInstance().track(normalizedPath);
+		Rectangle bounds = image.getBounds();
+		return put(key, new Entry(normalizedPath, image, (long) bounds.width * bounds.height * BYTES_PER_PIXEL));
+	}
+
+	/**
+	 * Store an image not computed from a source file, such as a placeholder,
+	 * evict least recently used images if the budget is exceeded. The cache
+	 * takes the ownership of the image.
+	 *
+	 * @param key
+	 *            String
+	 * @param image
+	 *            Image
+	 * @param bytes
+	 *            estimated bytes of the image
+	 * @return the cached image, the existing one if the key was already cached.
+	 */
+	public synchronized Image put(String key, Image image, long bytes) {
+		return put(key, new Entry(null, image, bytes));
+	}
+
+	private Image put(String key, Entry entry) {
+		Entry existing = entries.get(key);
+		if (existing != null) {
+			if (existing.image != entry.image) {
+				entry.image.dispose();
+			}
+			return existing.image;
+		}
+		Image image = entry.image;
+		entries.put(key, entry);
+		liveEntries.put(image, entry);
+		size += entry.bytes;
+		evict(getBudget(), entry);
+		return image;
+	}
+
+	/**
+	 * Acquire an image painted by a figure.
+	 *
+	 * @param image
+	 *            Image
+	 * @return if the image is managed by the cache and has to be released.
+	 */
+	public synchronized boolean acquire(Image image) {
+		Entry entry = liveEntries.get(image);
+		if (entry == null) {
+			return false;
+		}
+		entry.references++;
+		return true;
+	}
+
+	/**
+	 * Release an image no longer painted by a figure, dispose it if it has been
+	 * evicted and is no longer painted.
+	 *
+	 * @param image
+	 *            Image
+	 */
+	public synchronized void release(Image image) {
+		Entry entry = liveEntries.get(image);
+		if (entry != null && --entry.references <= 0 && entry.evicted) {
+			liveEntries.remove(image);
+			image.dispose();
+		}
+	}
+
+	/**
+	 * Evict and dispose all images not painted by a figure.
+	 */
+	public synchronized void clear() {
+		evict(0, null);
+	}
+
+	/**
+	 * Evict the images computed from a source file, including the images keyed
+	 * by its content hash and shared with identical files under other paths,
+	 * images still painted by a figure are disposed once released. Called
+	 * before the content hash of the file is invalidated.
+	 *
+	 * @param sourcePath
+	 *            path of the source image file
+	 */
+	public synchronized void invalidate(String sourcePath) {
+		String normalizedPath = ImageSourceTracker.normalize(sourcePath);
+		String keyPrefix = getContentKey(sourcePath) + "?"; //$NON-NLS-1$
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, Entry> entry = iterator.next();
+			if (normalizedPath.equals(entry.getValue().sourcePath) || entry.getKey().startsWith(keyPrefix)) {
+				iterator.remove();
+				retire(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Get the estimated bytes of the cached images.
+	 *
+	 * @return the estimated bytes of the cached images.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Get the number of cached images.
+	 *
+	 * @return the number of cached images.
+	 */
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of images found in the cache.
+	 *
+	 * @return the number of images found in the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Get the number of images not found in the cache.
+	 *
+	 * @return the number of images not found in the cache.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Get the number of evicted images.
+	 *
+	 * @return the number of evicted images.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Get the number of evicted images waiting for figures to release them.
+	 *
+	 * @return the number of evicted images not disposed yet.
+	 */
+	public synchronized int getPendingDisposalCount() {
+		return liveEntries.size() - entries.size();
+	}
+
+	/**
+	 * Get the budget of the cache in bytes.
+	 *
+	 * @return the budget of the cache in bytes.
+	 */
+	public long getBudget() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getInt(SchematicPreferencePage.ROTATED_IMAGES_CACHE_SIZE_PREF_ID) * MEGABYTE;
+	}
+
+	/**
+	 * Evict least recently used images until the budget is respected, the kept
+	 * entry is never evicted.
+	 */
+	private void evict(long budget, Entry kept) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (size > budget && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry == kept) {
+				continue;
+			}
+			iterator.remove();
+			evictionCount++;
+			retire(entry);
+		}
+	}
+
+	/**
+	 * Dispose an entry removed from the cache, or mark it to be disposed once
+	 * released.
+	 */
+	private void retire(Entry entry) {
+		size -= entry.bytes;
+		if (entry.references <= 0) {
+			liveEntries.remove(entry.image);
+			entry.image.dispose();
+		} else {
+			entry.evicted = true;
+		}
+	}
+}
@@ -12,6 +12,7 @@ package com.navalgroup.capella.schematic.design.images.editparts;
 import java.util.Optional;
 
 import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.PositionConstants;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.gmf.runtime.diagram.ui.editparts.IGraphicalEditPart;
@@ -37,8 +38,6 @@ import org.polarsys.capella.core.data.capellacore.CapellaElement;
 import org.polarsys.capella.core.data.capellacore.IntegerPropertyValue;
 import org.polarsys.capella.core.data.cs.Part;
 
-import com.navalgroup.capella.schematic.design.Messages;
-import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
 import com.navalgroup.capella.schematic.design.images.figures.RotativeImageListener;
 import com.navalgroup.capella.schematic.design.images.figures.SchematicSVGWorkspaceImageFigure;
 import com.navalgroup.capella.schematic.design.images.figures.SchematicWorkspaceImageFigure;
@@ -58,7 +57,17 @@ public abstract class AbstractSchematicDNodeContainerEditPart extends DNodeConta
 	/**
 	 * Lister for rotative image.
 	 */
-	private static RotativeImageListener listener;
+	private RotativeImageListener listener;
+
+	/**
+	 * Background figure whose position has been set last.
+	 */
+	private IFigure positionedFigure;
+
+	/**
+	 * Position set last.
+	 */
+	private int lastPosition;
 
 	/**
 	 * Constructor.
@@ -124,7 +133,9 @@ public abstract class AbstractSchematicDNodeContainerEditPart extends DNodeConta
 				} else {
 					imageFigure = SchematicWorkspaceImageFigure.createImageFigure(imagePath.get());
 				}
-				listener = new RotativeImageListener(this);
+				if (listener == null) {
+					listener = new RotativeImageListener(this);
+				}
 				imageFigure.addFigureListener(listener);
 			} else {
 				imageFigure = WorkspaceImageFigure.createImageFigure(DiagramImagesPath.IMAGE_NOT_FOUND);
@@ -136,21 +147,31 @@ public abstract class AbstractSchematicDNodeContainerEditPart extends DNodeConta
 	}
 
 	/**
-	 * Set image position.
+	 * Set image position, nothing is done if the background figure already has
+	 * this position.
 	 * 
 	 * @param position
 	 */
 	public void setPosition(int position) {
+		if (getBackgroundFigure() == positionedFigure && position == lastPosition) {
+			return;
+		}
+		positionedFigure = getBackgroundFigure();
+		lastPosition = position;
 		if (getBackgroundFigure() instanceof SchematicWorkspaceImageFigure) {
 			((SchematicWorkspaceImageFigure) getBackgroundFigure()).setPosition(position);
 		} else if (getBackgroundFigure() instanceof SchematicSVGWorkspaceImageFigure) {
-			SchematicDesignPlugin.getPlugin().logWarning(
-					Messages.AbstractSchematicDNodeContainerEditPart_ImageTranslationNotAvailableOnSVGImage);
+			((SchematicSVGWorkspaceImageFigure) getBackgroundFigure()).setPosition(position);
 		}
 	}
 
 	/**
-	 * Update position when figure has changed.
+	 * Update position when figure has changed. The position is read on each
+	 * change, through the
+	 * {@link com.navalgroup.capella.schematic.design.services.PropertyValueIndex}
+	 * of the element, since the property value may be shared with other
+	 * elements or restored by an undo: only a position different from the
+	 * last one refreshes the figure.
 	 */
 	public void figureHasChanged() {
 		if (getBackgroundFigure() != null) {
@@ -164,7 +185,9 @@ public abstract class AbstractSchematicDNodeContainerEditPart extends DNodeConta
 						(CapellaElement) semanticElement, SchematicServices.SCHEMATIC_IMAGE_POSITION_PROPERTY_VALUE);
 				if (propertyValueValue.isPresent()) {
 					setPosition(propertyValueValue.get().getValue());
-
+				} else {
+					// property value removed, e.g. by an undo
+					setPosition(PositionConstants.NORTH);
 				}
 			}
 		}
@@ -0,0 +1,106 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import org.eclipse.swt.graphics.ImageData;
+
+/**
+ * Downsampling of {@link ImageData} by a factor of 2, used to build the levels
+ * of detail painted at low zoom. Direct color images of 24 or 32 bits without
+ * transparent pixel are averaged on 2x2 pixel boxes, byte by byte, as well as
+ * their alpha plane. Other images, where averaging would produce colors out of
+ * the palette, are scaled by SWT.
+ */
+public final class ImageDataDownsampler {
+
+	/**
+	 * Highest level of detail: 1/8 of the image size.
+	 */
+	public static final int MAX_LEVEL = 3;
+
+	/**
+	 * Number of bits in a byte.
+	 */
+	private static final int BYTE_SIZE = 8;
+
+	/**
+	 * Byte mask.
+	 */
+	private static final int BYTE_MASK = 0xFF;
+
+	/**
+	 * Constructor.
+	 */
+	private ImageDataDownsampler() {
+	}
+
+	/**
+	 * Get the size of an image side at a level of detail.
+	 *
+	 * @param size
+	 *            size at level 0
+	 * @param level
+	 *            level of detail
+	 * @return the size at the level of detail, at least 1.
+	 */
+	public static int getSize(int size, int level) {
+		return Math.max(1, size >> level);
+	}
+
+	/**
+	 * Downsample an image by a factor of 2.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @return the image data of half the size of the source.
+	 */
+	public static ImageData halve(ImageData source) {
+		int width = getSize(source.width, 1);
+		int height = getSize(source.height, 1);
+		if (!source.palette.isDirect || source.depth % BYTE_SIZE != 0 || source.depth < 24
+				|| source.transparentPixel != -1 || source.maskData != null) {
+			return source.scaledTo(width, height);
+		}
+		ImageData target = new ImageData(width, height, source.depth, source.palette);
+		target.alpha = source.alpha;
+		int bytesPerPixel = source.depth / BYTE_SIZE;
+		halvePlane(source.data, source.bytesPerLine, source.width, source.height, target.data,
+				target.bytesPerLine, bytesPerPixel);
+		if (source.alphaData != null) {
+			target.alphaData = new byte[width * height];
+			halvePlane(source.alphaData, source.width, source.width, source.height, target.alphaData, width, 1);
+		}
+		return target;
+	}
+
+	/**
+	 * Average 2x2 pixel boxes of the source into the target, byte by byte. The
+	 * last column and row of odd sizes are repeated.
+	 */
+	private static void halvePlane(byte[] source, int sourceBytesPerLine, int sourceWidth, int sourceHeight,
+			byte[] target, int targetBytesPerLine, int bytesPerPixel) {
+		int width = getSize(sourceWidth, 1);
+		int height = getSize(sourceHeight, 1);
+		for (int y = 0; y < height; y++) {
+			int row0 = Math.min(2 * y, sourceHeight - 1) * sourceBytesPerLine;
+			int row1 = Math.min(2 * y + 1, sourceHeight - 1) * sourceBytesPerLine;
+			int targetOffset = y * targetBytesPerLine;
+			for (int x = 0; x < width; x++) {
+				int column0 = Math.min(2 * x, sourceWidth - 1) * bytesPerPixel;
+				int column1 = Math.min(2 * x + 1, sourceWidth - 1) * bytesPerPixel;
+				for (int i = 0; i < bytesPerPixel; i++) {
+					int sum = (source[row0 + column0 + i] & BYTE_MASK) + (source[row0 + column1 + i] & BYTE_MASK)
+							+ (source[row1 + column0 + i] & BYTE_MASK) + (source[row1 + column1 + i] & BYTE_MASK);
+					target[targetOffset++] = (byte) ((sum + 2) >> 2);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.swt.graphics.ImageData;
+
+/**
+ * Rotations and symmetries of {@link ImageData}, see {@link Orientation}. Images whose depth is a
+ * multiple of 8 bits are transformed by copying whole pixels directly in the
+ * data arrays, row by row for symmetries and block by block for rotations. The
+ * alpha plane is transformed the same way. Other depths use a per pixel
+ * fallback. Large images can be transformed by bands of rows on the common
+ * fork-join pool.
+ */
+public final class ImageDataTransformer {
+
+	/**
+	 * Side of the blocks copied by rotations, in pixels.
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	/**
+	 * Number of bits in a byte.
+	 */
+	private static final int BYTE_SIZE = 8;
+
+	/**
+	 * Minimum number of rows of a band transformed by one task.
+	 */
+	private static final int MIN_BAND_ROWS = BLOCK_SIZE;
+
+	/**
+	 * Byte array holding pixels with a fixed number of bytes per pixel.
+	 */
+	private static final class Plane {
+
+		/**
+		 * Pixels.
+		 */
+		private final byte[] data;
+
+		/**
+		 * Number of bytes per line, padding included.
+		 */
+		private final int bytesPerLine;
+
+		/**
+		 * Number of bytes per pixel.
+		 */
+		private final int bytesPerPixel;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param data
+		 *            byte[]
+		 * @param bytesPerLine
+		 *            int
+		 * @param bytesPerPixel
+		 *            int
+		 */
+		private Plane(byte[] data, int bytesPerLine, int bytesPerPixel) {
+			this.data = data;
+			this.bytesPerLine = bytesPerLine;
+			this.bytesPerPixel = bytesPerPixel;
+		}
+	}
+
+	/**
+	 * Task transforming a band of rows, split in two halves while it is large
+	 * enough. Bands of source rows are written to disjoint parts of the target.
+	 */
+	private static final class BandTask extends RecursiveAction {
+
+		/**
+		 * Serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Source.
+		 */
+		private final transient ImageData source;
+
+		/**
+		 * Target.
+		 */
+		private final transient ImageData target;
+
+		/**
+		 * Orientation to apply.
+		 */
+		private final Orientation orientation;
+
+		/**
+		 * First source row, inclusive.
+		 */
+		private final int fromRow;
+
+		/**
+		 * Last source row, exclusive.
+		 */
+		private final int toRow;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param source
+		 *            ImageData
+		 * @param target
+		 *            ImageData
+		 * @param orientation
+		 *            Orientation
+		 * @param fromRow
+		 *            int
+		 * @param toRow
+		 *            int
+		 */
+		private BandTask(ImageData source, ImageData target, Orientation orientation, int fromRow, int toRow) {
+			this.source = source;
+			this.target = target;
+			this.orientation = orientation;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+
+		@Override
+		protected void compute() {
+			int rows = toRow - fromRow;
+			if (rows < 2 * MIN_BAND_ROWS) {
+				transformRows(source, target, orientation, fromRow, toRow);
+			} else {
+				// split on a block boundary so that rotation blocks are not cut
+				int middle = fromRow + rows / 2 / BLOCK_SIZE * BLOCK_SIZE;
+				invokeAll(new BandTask(source, target, orientation, fromRow, middle),
+						new BandTask(source, target, orientation, middle, toRow));
+			}
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private ImageDataTransformer() {
+	}
+
+	/**
+	 * Transform image data.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @param orientation
+	 *            Orientation
+	 * @return transformed image data.
+	 */
+	public static ImageData transform(ImageData source, Orientation orientation) {
+		ImageData target = createTarget(source, orientation);
+		transformRows(source, target, orientation, 0, source.height);
+		return target;
+	}
+
+	/**
+	 * Transform image data by bands of rows on the common fork-join pool. Images
+	 * whose pixels are not byte aligned are transformed by the calling thread.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @param orientation
+	 *            Orientation
+	 * @return transformed image data.
+	 */
+	public static ImageData transformParallel(ImageData source, Orientation orientation) {
+		if (!isByteAligned(source)) {
+			return transform(source, orientation);
+		}
+		ImageData target = createTarget(source, orientation);
+		ForkJoinPool.commonPool().invoke(new BandTask(source, target, orientation, 0, source.height));
+		return target;
+	}
+
+	/**
+	 * Create the empty image data receiving a transformation.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @param orientation
+	 *            Orientation
+	 * @return empty transformed image data.
+	 */
+	static ImageData createTarget(ImageData source, Orientation orientation) {
+		boolean swap = orientation.isSwappingAxes();
+		ImageData target = new ImageData(swap ? source.height : source.width, swap ? source.width : source.height,
+				source.depth, source.palette);
+		target.transparentPixel = source.transparentPixel;
+		target.alpha = source.alpha;
+		if (source.alphaData != null) {
+			target.alphaData = new byte[target.width * target.height];
+		}
+		return target;
+	}
+
+	/**
+	 * Check if the source can be transformed by bands of rows concurrently.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @return if pixels of the source are made of whole bytes.
+	 */
+	static boolean isByteAligned(ImageData source) {
+		return source.depth % BYTE_SIZE == 0;
+	}
+
+	/**
+	 * Transform a band of rows of the source into the target.
+	 *
+	 * @param source
+	 *            ImageData
+	 * @param target
+	 *            ImageData created by {@link #createTarget(ImageData, Orientation)}
+	 * @param orientation
+	 *            Orientation
+	 * @param fromRow
+	 *            first source row, inclusive
+	 * @param toRow
+	 *            last source row, exclusive
+	 */
+	static void transformRows(ImageData source, ImageData target, Orientation orientation, int fromRow,
+			int toRow) {
+		if (isByteAligned(source)) {
+			transformPlane(new Plane(source.data, source.bytesPerLine, source.depth / BYTE_SIZE),
+					new Plane(target.data, target.bytesPerLine, source.depth / BYTE_SIZE), source.width,
+					source.height, orientation, fromRow, toRow);
+		} else {
+			transformPixels(source, target, orientation, fromRow, toRow);
+		}
+		if (source.alphaData != null) {
+			transformPlane(new Plane(source.alphaData, source.width, 1), new Plane(target.alphaData, target.width, 1),
+					source.width, source.height, orientation, fromRow, toRow);
+		}
+	}
+
+	private static void transformPlane(Plane source, Plane target, int width, int height, Orientation orientation,
+			int fromRow, int toRow) {
+		if (orientation.isSwappingAxes()) {
+			rotate(source, target, width, height, orientation, fromRow, toRow);
+			return;
+		}
+		boolean mirror = orientation.isReversingX();
+		boolean flip = orientation.isReversingY();
+		int rowLength = width * source.bytesPerPixel;
+		for (int y = fromRow; y < toRow; y++) {
+			int targetOffset = (flip ? height - 1 - y : y) * target.bytesPerLine;
+			if (mirror) {
+				copyPixels(source, y * source.bytesPerLine, target, targetOffset + rowLength - source.bytesPerPixel,
+						-source.bytesPerPixel, width);
+			} else {
+				System.arraycopy(source.data, y * source.bytesPerLine, target.data, targetOffset, rowLength);
+			}
+		}
+	}
+
+	/**
+	 * Rotate or transpose by blocks so that reads and writes of a block both stay
+	 * in cache. A source row becomes a target column.
+	 */
+	private static void rotate(Plane source, Plane target, int width, int height, Orientation orientation,
+			int fromRow, int toRow) {
+		boolean reverseColumns = orientation.isReversingX();
+		boolean reverseRows = orientation.isReversingY();
+		int targetStep = reverseRows ? -target.bytesPerLine : target.bytesPerLine;
+		for (int blockY = fromRow; blockY < toRow; blockY += BLOCK_SIZE) {
+			int blockYEnd = Math.min(blockY + BLOCK_SIZE, toRow);
+			for (int blockX = 0; blockX < width; blockX += BLOCK_SIZE) {
+				int count = Math.min(blockX + BLOCK_SIZE, width) - blockX;
+				int targetRow = reverseRows ? width - 1 - blockX : blockX;
+				for (int y = blockY; y < blockYEnd; y++) {
+					int targetColumn = reverseColumns ? height - 1 - y : y;
+					copyPixels(source, y * source.bytesPerLine + blockX * source.bytesPerPixel, target,
+							targetRow * target.bytesPerLine + targetColumn * source.bytesPerPixel, targetStep, count);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy consecutive source pixels to target pixels separated by a step.
+	 */
+	private static void copyPixels(Plane source, int sourceOffset, Plane target, int targetOffset, int targetStep,
+			int count) {
+		byte[] src = source.data;
+		byte[] dst = target.data;
+		int s = sourceOffset;
+		int d = targetOffset;
+		switch (source.bytesPerPixel) {
+		case 1:
+			for (int i = 0; i < count; i++, s++, d += targetStep) {
+				dst[d] = src[s];
+			}
+			break;
+		case 3:
+			for (int i = 0; i < count; i++, s += 3, d += targetStep) {
+				dst[d] = src[s];
+				dst[d + 1] = src[s + 1];
+				dst[d + 2] = src[s + 2];
+			}
+			break;
+		case 4:
+			for (int i = 0; i < count; i++, s += 4, d += targetStep) {
+				dst[d] = src[s];
+				dst[d + 1] = src[s + 1];
+				dst[d + 2] = src[s + 2];
+				dst[d + 3] = src[s + 3];
+			}
+			break;
+		default:
+			for (int i = 0; i < count; i++, s += source.bytesPerPixel, d += targetStep) {
+				System.arraycopy(src, s, dst, d, source.bytesPerPixel);
+			}
+		}
+	}
+
+	/**
+	 * Fallback for depths lower than 8 bits, pixels are not byte aligned.
+	 */
+	private static void transformPixels(ImageData source, ImageData target, Orientation orientation, int fromRow,
+			int toRow) {
+		boolean swap = orientation.isSwappingAxes();
+		boolean reverseX = orientation.isReversingX();
+		boolean reverseY = orientation.isReversingY();
+		for (int srcY = fromRow; srcY < toRow; srcY++) {
+			for (int srcX = 0; srcX < source.width; srcX++) {
+				int destX = swap ? srcY : srcX;
+				int destY = swap ? srcX : srcY;
+				if (reverseX) {
+					destX = target.width - 1 - destX;
+				}
+				if (reverseY) {
+					destY = target.height - 1 - destY;
+				}
+				target.setPixel(destX, destY, source.getPixel(srcX, srcY));
+			}
+		}
+	}
+}
@@ -0,0 +1,253 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import org.eclipse.draw2d.PositionConstants;
+
+/**
+ * Orientations of an image: the eight rotations and symmetries of a square
+ * (dihedral group D4). Each orientation is a 2x2 matrix mapping source pixel
+ * coordinates (x to the right, y downwards) to target coordinates, up to a
+ * translation. Orientations are stored as their {@link PositionConstants}
+ * position.
+ */
+public enum Orientation {
+
+	/**
+	 * Initial image.
+	 */
+	NORTH(PositionConstants.NORTH, 1, 0, 0, 1),
+
+	/**
+	 * Rotation 90 degrees left.
+	 */
+	WEST(PositionConstants.WEST, 0, 1, -1, 0),
+
+	/**
+	 * Rotation 90 degrees right.
+	 */
+	EAST(PositionConstants.EAST, 0, -1, 1, 0),
+
+	/**
+	 * Rotation 180 degrees.
+	 */
+	SOUTH(PositionConstants.SOUTH, -1, 0, 0, -1),
+
+	/**
+	 * Horizontal symmetry (left and right are swapped).
+	 */
+	HORIZONTAL(PositionConstants.HORIZONTAL, -1, 0, 0, 1),
+
+	/**
+	 * Vertical symmetry (top and bottom are swapped).
+	 */
+	VERTICAL(PositionConstants.VERTICAL, 1, 0, 0, -1),
+
+	/**
+	 * Symmetry on the top left to bottom right diagonal.
+	 */
+	TRANSPOSE(PositionConstants.NORTH_WEST, 0, 1, 1, 0),
+
+	/**
+	 * Symmetry on the top right to bottom left diagonal.
+	 */
+	ANTI_TRANSPOSE(PositionConstants.NORTH_EAST, 0, -1, -1, 0);
+
+	/**
+	 * PositionConstants position.
+	 */
+	private final int position;
+
+	/**
+	 * Matrix coefficients: targetX = a * x + b * y, targetY = c * x + d * y.
+	 */
+	private final int a;
+
+	/**
+	 * Matrix coefficient.
+	 */
+	private final int b;
+
+	/**
+	 * Matrix coefficient.
+	 */
+	private final int c;
+
+	/**
+	 * Matrix coefficient.
+	 */
+	private final int d;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param position
+	 *            PositionConstants position
+	 * @param a
+	 *            int
+	 * @param b
+	 *            int
+	 * @param c
+	 *            int
+	 * @param d
+	 *            int
+	 */
+	Orientation(int position, int a, int b, int c, int d) {
+		this.position = position;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+	}
+
+	/**
+	 * Get the orientation of a position.
+	 *
+	 * @param position
+	 *            PositionConstants position
+	 * @return the orientation of the position, NORTH if the position is unknown.
+	 */
+	public static Orientation fromPosition(int position) {
+		for (Orientation orientation : values()) {
+			if (orientation.position == position) {
+				return orientation;
+			}
+		}
+		return NORTH;
+	}
+
+	/**
+	 * Get the PositionConstants position.
+	 *
+	 * @return the PositionConstants position.
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Check if width and height are swapped.
+	 *
+	 * @return if width and height are swapped.
+	 */
+	public boolean isSwappingAxes() {
+		return a == 0;
+	}
+
+	/**
+	 * Check if the orientation mirrors the image: it is then a horizontal
+	 * symmetry followed by the rotation {@link #getRotation()}.
+	 *
+	 * @return if the orientation mirrors the image.
+	 */
+	public boolean isMirroring() {
+		return a * d - b * c < 0;
+	}
+
+	/**
+	 * Get the clockwise rotation of the orientation, applied after the
+	 * horizontal symmetry if the orientation is mirroring.
+	 *
+	 * @return the rotation in degrees: 0, 90, 180 or -90.
+	 */
+	public int getRotation() {
+		int cos = a;
+		int sin = c;
+		if (isMirroring()) {
+			// rotation = this orientation composed with the horizontal symmetry
+			cos = -a;
+			sin = -c;
+		}
+		return (int) Math.round(Math.toDegrees(Math.atan2(sin, cos)));
+	}
+
+	/**
+	 * Get the orientation applying this orientation then the given one.
+	 *
+	 * @param then
+	 *            Orientation applied after this one
+	 * @return the composed orientation.
+	 */
+	public Orientation compose(Orientation then) {
+		return fromMatrix(then.a * a + then.b * c, then.a * b + then.b * d, then.c * a + then.d * c,
+				then.c * b + then.d * d);
+	}
+
+	/**
+	 * Get the orientation cancelling this one.
+	 *
+	 * @return the inverse orientation.
+	 */
+	public Orientation inverse() {
+		// matrices of D4 are orthogonal: the inverse is the transpose
+		return fromMatrix(a, c, b, d);
+	}
+
+	/**
+	 * Get the orientation transforming this one into the target one.
+	 *
+	 * @param target
+	 *            Orientation
+	 * @return the orientation to apply to an image in this orientation to get
+	 *         the target orientation.
+	 */
+	public Orientation to(Orientation target) {
+		return inverse().compose(target);
+	}
+
+	/**
+	 * Get the relative cost of applying this orientation to pixels: no copy,
+	 * row copies, mirrored rows, then rotations.
+	 *
+	 * @return the relative cost of applying this orientation.
+	 */
+	public int getCost() {
+		int cost;
+		if (this == NORTH) {
+			cost = 0;
+		} else if (this == VERTICAL) {
+			cost = 1;
+		} else if (isSwappingAxes()) {
+			cost = 3;
+		} else {
+			cost = 2;
+		}
+		return cost;
+	}
+
+	/**
+	 * Check if target columns are reversed: targetX decreases when the source
+	 * coordinate increases.
+	 *
+	 * @return if target columns are reversed.
+	 */
+	boolean isReversingX() {
+		return a + b < 0;
+	}
+
+	/**
+	 * Check if target rows are reversed: targetY decreases when the source
+	 * coordinate increases.
+	 *
+	 * @return if target rows are reversed.
+	 */
+	boolean isReversingY() {
+		return c + d < 0;
+	}
+
+	private static Orientation fromMatrix(int ma, int mb, int mc, int md) {
+		for (Orientation orientation : values()) {
+			if (orientation.a == ma && orientation.b == mb && orientation.c == mc && orientation.d == md) {
+				return orientation;
+			}
+		}
+		throw new IllegalStateException();
+	}
+}
@@ -0,0 +1,116 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.apache.batik.gvt.renderer.ImageRenderer;
+import org.apache.batik.gvt.renderer.StaticRenderer;
+import org.apache.batik.transcoder.SVGAbstractTranscoder;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.w3c.dom.Document;
+
+/**
+ * Transcoder of an SVG document directly in an orientation: the transform of
+ * the orientation is composed with the view box transform of the document,
+ * so that the image is rendered once in its final orientation. An instance
+ * renders one image and is owned by its caller.
+ */
+final class OrientedImageTranscoder extends SVGAbstractTranscoder {
+
+	/**
+	 * Degrees of a quarter turn.
+	 */
+	private static final int QUARTER_TURN = 90;
+
+	/**
+	 * Orientation of the rendered image.
+	 */
+	private final Orientation orientation;
+
+	/**
+	 * Rendered image.
+	 */
+	private BufferedImage image;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param orientation
+	 *            Orientation
+	 */
+	private OrientedImageTranscoder(Orientation orientation) {
+		this.orientation = orientation;
+	}
+
+	/**
+	 * Render an SVG document in an orientation.
+	 *
+	 * @param document
+	 *            SVG document, not modified
+	 * @param orientation
+	 *            Orientation
+	 * @param width
+	 *            width of the oriented image
+	 * @param height
+	 *            height of the oriented image
+	 * @return the rendered image.
+	 * @throws TranscoderException
+	 *             if the document cannot be rendered
+	 */
+	static BufferedImage render(Document document, Orientation orientation, int width, int height)
+			throws TranscoderException {
+		OrientedImageTranscoder transcoder = new OrientedImageTranscoder(orientation);
+		// the document is laid out in its initial orientation, axes swapped back
+		boolean swap = orientation.isSwappingAxes();
+		transcoder.addTranscodingHint(KEY_WIDTH, Float.valueOf(swap ? height : width));
+		transcoder.addTranscodingHint(KEY_HEIGHT, Float.valueOf(swap ? width : height));
+		transcoder.transcode(new TranscoderInput(document), new TranscoderOutput());
+		return transcoder.image;
+	}
+
+	@Override
+	protected void transcode(Document document, String uri, TranscoderOutput output) throws TranscoderException {
+		super.transcode(document, uri, output);
+		int sourceWidth = (int) (width + 0.5);
+		int sourceHeight = (int) (height + 0.5);
+		boolean swap = orientation.isSwappingAxes();
+		int targetWidth = swap ? sourceHeight : sourceWidth;
+		int targetHeight = swap ? sourceWidth : sourceHeight;
+		// the horizontal symmetry if mirroring, then the rotation, around the
+		// center of the image
+		AffineTransform transform = new AffineTransform();
+		transform.translate(targetWidth / 2.0, targetHeight / 2.0);
+		transform.quadrantRotate(orientation.getRotation() / QUARTER_TURN);
+		if (orientation.isMirroring()) {
+			transform.scale(-1, 1);
+		}
+		transform.translate(-sourceWidth / 2.0, -sourceHeight / 2.0);
+		transform.concatenate(curTxf);
+		ImageRenderer renderer = new StaticRenderer();
+		try {
+			renderer.updateOffScreen(targetWidth, targetHeight);
+			renderer.setTransform(transform);
+			renderer.setTree(root);
+			renderer.repaint(transform.createInverse()
+					.createTransformedShape(new Rectangle2D.Float(0, 0, targetWidth, targetHeight)));
+			image = renderer.getOffScreen();
+		} catch (NoninvertibleTransformException e) {
+			throw new TranscoderException(e);
+		} finally {
+			root = null;
+		}
+	}
+}
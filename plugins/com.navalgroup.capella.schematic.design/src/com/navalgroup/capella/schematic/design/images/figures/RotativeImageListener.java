@@ -15,12 +15,14 @@ import java.beans.PropertyChangeListener;
 import org.eclipse.draw2d.AncestorListener;
 import org.eclipse.draw2d.FigureListener;
 import org.eclipse.draw2d.IFigure;
+import org.eclipse.swt.widgets.Display;
 
 import com.navalgroup.capella.schematic.design.images.editparts.AbstractSchematicDNodeContainerEditPart;
 
 /**
  * Listener for rotative bordered nodes which notifies the edit part when a
- * change has occured.
+ * change has occured. Changes are coalesced: the edit part is notified at most
+ * once per UI event loop, for example while the node is dragged.
  *
  * @author @author <a href="mailto:nathalie.lepine@obeo.fr">Nathalie Lepine</a>
  */
@@ -30,6 +32,11 @@ public class RotativeImageListener implements FigureListener, PropertyChangeList
 	 */
 	private AbstractSchematicDNodeContainerEditPart editpart;
 
+	/**
+	 * Whether a notification of the edit part is scheduled.
+	 */
+	private boolean notificationScheduled;
+
 	/**
 	 * Constructor.
 	 *
@@ -41,10 +48,22 @@ public class RotativeImageListener implements FigureListener, PropertyChangeList
 	}
 
 	/**
-	 * Notify the edit part that.
+	 * Notify the edit part that its figure has changed, once the pending UI
+	 * events are processed.
 	 */
 	public void notifyEditPart() {
-		editpart.figureHasChanged();
+		Display display = Display.getCurrent();
+		if (display == null) {
+			editpart.figureHasChanged();
+		} else if (!notificationScheduled) {
+			notificationScheduled = true;
+			display.asyncExec(() -> {
+				notificationScheduled = false;
+				if (editpart.isActive()) {
+					editpart.figureHasChanged();
+				}
+			});
+		}
 	}
 
 	/**
@@ -0,0 +1,307 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.batik.transcoder.TranscoderException;
+import org.eclipse.sirius.diagram.ui.tools.api.figure.SVGFigure;
+import org.eclipse.swt.widgets.Display;
+import org.w3c.dom.Document;
+
+import com.navalgroup.capella.schematic.design.images.cache.SchematicImageCache;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Rasterizer of the SVG images displayed by Schematic figures. SVG documents
+ * are rendered directly in their orientation by a private transcoder, on a
+ * bounded pool of worker threads working on copies of the shared documents
+ * made in the UI thread. Rasterised images are stored in the
+ * {@link SchematicImageCache} and the waiting figures are notified in the UI
+ * thread. Identical requests are transcoded once, and a request no figure waits
+ * for anymore is cancelled, so that a continuous zoom only transcodes the last
+ * zoom level. The rasterizer is used when the "Rasterize SVG images in
+ * background" preference is enabled, and for all orientations.
+ */
+public final class SVGRasterizer {
+
+	/**
+	 * Maximum number of worker threads.
+	 */
+	private static final int MAX_THREADS = 2;
+
+	/**
+	 * Idle time before a worker thread stops, in seconds.
+	 */
+	private static final long KEEP_ALIVE_TIME = 30;
+
+	/**
+	 * Name of the worker threads.
+	 */
+	private static final String THREAD_NAME = "Schematic SVG rasterizer"; //$NON-NLS-1$
+
+	/**
+	 * The shared instance.
+	 */
+	private static final SVGRasterizer INSTANCE = new SVGRasterizer();
+
+	/**
+	 * Worker threads.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Pending rasterisations by key of the rasterised image, accessed in the UI
+	 * thread.
+	 */
+	private final Map<String, RasterTask> pending = new HashMap<>();
+
+	/**
+	 * Rasterisation of an SVG document.
+	 */
+	private final class RasterTask implements Runnable {
+
+		/**
+		 * Key of the rasterised image.
+		 */
+		private final String key;
+
+		/**
+		 * Path of the SVG file.
+		 */
+		private final String path;
+
+		/**
+		 * Copy of the shared document, owned by the task.
+		 */
+		private final Document document;
+
+		/**
+		 * Orientation of the rasterised image.
+		 */
+		private final Orientation orientation;
+
+		/**
+		 * Width of the rasterised image.
+		 */
+		private final int width;
+
+		/**
+		 * Height of the rasterised image.
+		 */
+		private final int height;
+
+		/**
+		 * Display creating the image.
+		 */
+		private final Display display;
+
+		/**
+		 * Listeners notified in the UI thread when the image is rasterised.
+		 */
+		private final List<Runnable> listeners = new ArrayList<>();
+
+		/**
+		 * Whether no figure waits for the image anymore.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key
+		 *            String
+		 * @param path
+		 *            String
+		 * @param document
+		 *            Document
+		 * @param orientation
+		 *            Orientation
+		 * @param width
+		 *            int
+		 * @param height
+		 *            int
+		 * @param display
+		 *            Display
+		 */
+		private RasterTask(String key, String path, Document document, Orientation orientation, int width,
+				int height, Display display) {
+			this.key = key;
+			this.path = path;
+			this.document = document;
+			this.orientation = orientation;
+			this.width = width;
+			this.height = height;
+			this.display = display;
+		}
+
+		@Override
+		public void run() {
+			if (cancelled) {
+				return;
+			}
+			BufferedImage image;
+			try {
+				image = rasterize(document, orientation, width, height);
+			} catch (RuntimeException e) {
+				// Batik failure, the figure keeps its current image
+				image = null;
+			}
+			BufferedImage rasterized = image;
+			if (!display.isDisposed()) {
+				display.asyncExec(() -> rasterized(this, rasterized));
+			}
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private SVGRasterizer() {
+		int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+		executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, THREAD_NAME);
+					thread.setDaemon(true);
+					thread.setPriority(Thread.MIN_PRIORITY);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static SVGRasterizer getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Check if SVG images are rasterised in background.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isEnabled() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.ASYNC_SVG_RASTERIZATION_PREF_ID);
+	}
+
+	/**
+	 * Request the rasterisation of an SVG document, in the UI thread.
+	 *
+	 * @param key
+	 *            key of the rasterised image in the {@link SchematicImageCache}
+	 * @param path
+	 *            path of the SVG file
+	 * @param document
+	 *            parsed SVG document, copied in the UI thread and not modified
+	 * @param orientation
+	 *            Orientation
+	 * @param width
+	 *            width of the rasterised image
+	 * @param height
+	 *            height of the rasterised image
+	 * @param listener
+	 *            notified in the UI thread once the image is cached
+	 */
+	void request(String key, String path, Document document, Orientation orientation, int width, int height,
+			Runnable listener) {
+		RasterTask task = pending.get(key);
+		if (task == null) {
+			// the workers never share the document with the UI thread
+			Document copy = (Document) document.cloneNode(true);
+			task = new RasterTask(key, path, copy, orientation, width, height, Display.getCurrent());
+			pending.put(key, task);
+			executor.execute(task);
+		}
+		if (!task.listeners.contains(listener)) {
+			task.listeners.add(listener);
+		}
+	}
+
+	/**
+	 * Cancel a request, the rasterisation is cancelled if no other figure waits
+	 * for it.
+	 *
+	 * @param key
+	 *            key of the rasterised image
+	 * @param listener
+	 *            listener of the request
+	 */
+	void cancel(String key, Runnable listener) {
+		RasterTask task = pending.get(key);
+		if (task != null && task.listeners.remove(listener) && task.listeners.isEmpty()) {
+			task.cancelled = true;
+			executor.remove(task);
+			pending.remove(key);
+		}
+	}
+
+	/**
+	 * Cancel pending rasterisations, in the UI thread.
+	 */
+	public void clear() {
+		for (RasterTask task : pending.values()) {
+			task.cancelled = true;
+		}
+		executor.getQueue().clear();
+		pending.clear();
+	}
+
+	/**
+	 * Render an SVG document in an orientation with a private transcoder, the
+	 * transform of the orientation is applied by the transcoder.
+	 *
+	 * @param document
+	 *            SVG document, not modified
+	 * @param orientation
+	 *            Orientation
+	 * @param width
+	 *            width of the transformed image
+	 * @param height
+	 *            height of the transformed image
+	 * @return the transformed image or null if the document cannot be
+	 *         transcoded.
+	 */
+	static BufferedImage rasterize(Document document, Orientation orientation, int width, int height) {
+		BufferedImage image;
+		try {
+			image = OrientedImageTranscoder.render(document, orientation, width, height);
+		} catch (TranscoderException e) {
+			// invalid document, the figure paints it as Sirius does
+			image = null;
+		}
+		return image;
+	}
+
+	private void rasterized(RasterTask task, BufferedImage image) {
+		if (pending.get(task.key) == task) {
+			pending.remove(task.key);
+		}
+		if (task.cancelled || image == null) {
+			// no longer requested, or the figures keep their current image
+			return;
+		}
+		SchematicImageCache.getInstance().put(task.key, task.path, SVGFigure.toSWT(task.display, image));
+		for (Runnable listener : task.listeners) {
+			listener.run();
+		}
+	}
+}
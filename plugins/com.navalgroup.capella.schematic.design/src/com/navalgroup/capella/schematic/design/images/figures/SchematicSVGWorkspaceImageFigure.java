@@ -9,11 +9,15 @@
  ******************************************************************************/
 package com.navalgroup.capella.schematic.design.images.figures;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.Optional;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.draw2d.Graphics;
+import org.eclipse.draw2d.PositionConstants;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.sirius.common.tools.api.resource.FileProvider;
 import org.eclipse.sirius.common.tools.api.util.ReflectionHelper;
@@ -24,13 +28,23 @@ import org.eclipse.sirius.diagram.ui.tools.api.figure.SVGWorkspaceImageFigure;
 import org.eclipse.sirius.diagram.ui.tools.internal.figure.svg.SimpleImageTranscoder;
 import org.eclipse.sirius.ext.base.Option;
 import org.eclipse.sirius.ext.base.Options;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
 import org.polarsys.capella.core.data.capellacore.CapellaElement;
+import org.w3c.dom.Document;
 
+import com.navalgroup.capella.schematic.design.images.cache.ImageSourceTracker;
+import com.navalgroup.capella.schematic.design.images.cache.SVGDocumentCache;
+import com.navalgroup.capella.schematic.design.images.cache.SchematicImageCache;
 import com.navalgroup.capella.schematic.design.services.SchematicViewpointServices;
 
 /**
  * SVGWorkspaceImageFigure for Schematic to get image from property value and
- * configuration file.
+ * configuration file. Rotated and mirrored images are transcoded in their
+ * initial orientation then transformed, and cached in the
+ * {@link SchematicImageCache} by orientation and zoom bucket. When SVG images
+ * are rasterised in background, new zoom buckets are rasterised by the
+ * {@link SVGRasterizer} while the last rasterised image is painted scaled.
  * 
  * @author <a href="mailto:nathalie.lepine@obeo.fr">Nathalie Lepine</a>
  *
@@ -38,6 +52,95 @@ import com.navalgroup.capella.schematic.design.services.SchematicViewpointServic
 @SuppressWarnings("restriction")
 public class SchematicSVGWorkspaceImageFigure extends SVGWorkspaceImageFigure {
 
+	/**
+	 * Smallest zoom bucket.
+	 */
+	private static final double MIN_ZOOM_BUCKET = 0.125;
+
+	/**
+	 * Largest zoom bucket.
+	 */
+	private static final double MAX_ZOOM_BUCKET = 4;
+
+	/**
+	 * Aspect ratio not computed yet.
+	 */
+	private static final double UNKNOWN_ASPECT_RATIO = -1;
+
+	/**
+	 * Workspace path of the SVG file.
+	 */
+	private String imagePath;
+
+	/**
+	 * Image position, see {@link Orientation}.
+	 */
+	private int position = PositionConstants.NORTH;
+
+	/**
+	 * URI and modification stamp of the displayed SVG file.
+	 */
+	private String contentStamp;
+
+	/**
+	 * Aspect ratio of the SVG document, from the {@link SVGDocumentCache}.
+	 */
+	private double imageAspectRatio = UNKNOWN_ASPECT_RATIO;
+
+	/**
+	 * Path of the SVG file listened while the figure is displayed.
+	 */
+	private String listenedPath;
+
+	/**
+	 * Transformed image acquired from the {@link SchematicImageCache}, released
+	 * when the figure no longer paints it.
+	 */
+	private Image cachedImage;
+
+	/**
+	 * Path, orientation and size of the transformed image.
+	 */
+	private String cachedImageKey;
+
+	/**
+	 * Key of the image requested to the {@link SVGRasterizer}.
+	 */
+	private String requestedKey;
+
+	/**
+	 * Path, orientation and size of the image requested to the
+	 * {@link SVGRasterizer}.
+	 */
+	private String requestedImageKey;
+
+	/**
+	 * Listener of the rasterisation of the requested image, acquired as soon
+	 * as it is cached so that it cannot be evicted before the next paint.
+	 */
+	private final Runnable rasterListener = () -> {
+		Image image = SchematicImageCache.getInstance().peek(requestedKey);
+		String imageKey = requestedImageKey;
+		requestedKey = null;
+		requestedImageKey = null;
+		if (image != null) {
+			installImage(image, imageKey);
+		}
+		repaint();
+	};
+
+	/**
+	 * Listener of the SVG file, the document is reloaded and the transformed
+	 * image is transcoded again on next paint.
+	 */
+	private final Runnable sourceListener = () -> {
+		releaseCachedImage();
+		if (imagePath != null) {
+			updateContent(imagePath);
+		}
+		repaint();
+	};
+
 	/**
 	 * Create the {@link SVGWorkspaceImageFigure} from a {@link WorkspaceImage}
 	 * instance.
@@ -66,31 +169,261 @@ public class SchematicSVGWorkspaceImageFigure extends SVGWorkspaceImageFigure {
 					}
 				}
 			}
-			boolean updated = this.updateImageURI(workspacePath);
-			if (updated) {
-				this.contentChanged();
-				SimpleImageTranscoder transcoder = getTranscoder();
-				if (transcoder != null) {
-					ReflectionHelper.setFieldValueWithoutException(this, "imageAspectRatioForModeWithViewBox",
-							transcoder.getAspectRatio());
-				}
-			}
+			updateContent(workspacePath);
 		} else {
+			setImagePath(null);
+			contentStamp = null;
+			imageAspectRatio = UNKNOWN_ASPECT_RATIO;
 			this.setURI(null);
 		}
 	}
 
+	private void updateContent(String workspacePath) {
+		boolean updated = this.updateImageURI(workspacePath);
+		if (updated) {
+			setImagePath(workspacePath);
+			this.contentChanged();
+			SimpleImageTranscoder transcoder = getTranscoder();
+			if (transcoder != null) {
+				imageAspectRatio = SVGDocumentCache.getInstance().getAspectRatio(getURI(),
+						transcoder::getAspectRatio);
+				updateAspectRatio();
+			}
+		}
+	}
+
+	/**
+	 * Set the aspect ratio of the oriented image to the Sirius figure, which
+	 * reads its field directly.
+	 */
+	private void updateAspectRatio() {
+		if (imageAspectRatio != UNKNOWN_ASPECT_RATIO) {
+			ReflectionHelper.setFieldValueWithoutException(this, "imageAspectRatioForModeWithViewBox",
+					getImageAspectRatio());
+		}
+	}
+
+	@Override
+	public double getImageAspectRatio() {
+		if (imageAspectRatio == UNKNOWN_ASPECT_RATIO) {
+			return super.getImageAspectRatio();
+		}
+		if (imageAspectRatio > 0 && Orientation.fromPosition(position).isSwappingAxes()) {
+			// rotated by a quarter turn or transposed
+			return 1 / imageAspectRatio;
+		}
+		return imageAspectRatio;
+	}
+
+	/**
+	 * Set position and repaint figure.
+	 *
+	 * @param pos
+	 *            int
+	 */
+	public void setPosition(int pos) {
+		if (position != pos) {
+			position = pos;
+			releaseCachedImage();
+			updateAspectRatio();
+			repaint();
+		}
+	}
+
+	@Override
+	protected void paintFigure(Graphics graphics) {
+		Orientation orientation = Orientation.fromPosition(position);
+		Image image = null;
+		if (orientation != Orientation.NORTH || SVGRasterizer.isEnabled()) {
+			image = getTransformedImage(graphics.getAbsoluteScale(), orientation);
+		}
+		if (image == null) {
+			super.paintFigure(graphics);
+		} else {
+			Rectangle clientArea = getClientArea();
+			org.eclipse.swt.graphics.Rectangle imageBounds = image.getBounds();
+			graphics.pushState();
+			if (isTransparent()) {
+				graphics.setAlpha(getSiriusAlpha());
+			}
+			graphics.drawImage(image, 0, 0, imageBounds.width, imageBounds.height, clientArea.x, clientArea.y,
+					clientArea.width, clientArea.height);
+			graphics.popState();
+		}
+	}
+
+	/**
+	 * Get the image transformed in an orientation, transcoded at the zoom
+	 * bucket of the scale. In background mode, only the first image is
+	 * transcoded in the UI thread: the previous image is returned until the
+	 * new one is rasterised.
+	 *
+	 * @return the transformed image or null if the SVG file cannot be
+	 *         transcoded.
+	 */
+	private Image getTransformedImage(double scale, Orientation orientation) {
+		Rectangle clientArea = getClientArea();
+		Document document = getDocument();
+		if (imagePath == null || document == null || clientArea.isEmpty()) {
+			return null;
+		}
+		double bucket = getZoomBucket(scale);
+		int width = (int) Math.ceil(clientArea.width * bucket);
+		int height = (int) Math.ceil(clientArea.height * bucket);
+		String key = imagePath + "?" + orientation.getPosition() + "/" + width + "x" + height;
+		if (cachedImage == null || !key.equals(cachedImageKey)) {
+			String contentKey = SchematicImageCache.getKey(imagePath, orientation.getPosition()) + "/" + width + "x"
+					+ height;
+			Image image = SchematicImageCache.getInstance().get(contentKey);
+			if (image == null && cachedImage != null && SVGRasterizer.isEnabled()) {
+				// the previous image is painted scaled meanwhile
+				requestRaster(key, contentKey, document, orientation, width, height);
+			} else {
+				if (image == null) {
+					image = rasterize(document, contentKey, orientation, width, height);
+				}
+				installImage(image, key);
+			}
+		}
+		return cachedImage;
+	}
+
+	/**
+	 * Acquire the image painted by the figure and release the previous one.
+	 */
+	private void installImage(Image image, String key) {
+		releaseCachedImage();
+		if (image != null && SchematicImageCache.getInstance().acquire(image)) {
+			cachedImage = image;
+			cachedImageKey = key;
+		}
+	}
+
+	/**
+	 * Transcode an image in the UI thread with a private transcoder, the
+	 * transcoder of the figure is left untouched, and store it in the cache.
+	 */
+	private Image rasterize(Document document, String contentKey, Orientation orientation, int width, int height) {
+		Image image = null;
+		BufferedImage rasterized = SVGRasterizer.rasterize(document, orientation, width, height);
+		if (rasterized != null) {
+			image = SchematicImageCache.getInstance().put(contentKey, imagePath,
+					SVGFigure.toSWT(Display.getCurrent(), rasterized));
+		}
+		return image;
+	}
+
+	/**
+	 * Request an image to the {@link SVGRasterizer}, the previous request is
+	 * cancelled if obsolete.
+	 */
+	private void requestRaster(String key, String contentKey, Document document, Orientation orientation, int width,
+			int height) {
+		if (!contentKey.equals(requestedKey)) {
+			cancelRaster();
+			requestedKey = contentKey;
+			requestedImageKey = key;
+			SVGRasterizer.getInstance().request(contentKey, imagePath, document, orientation, width, height,
+					rasterListener);
+		}
+	}
+
+	private void cancelRaster() {
+		if (requestedKey != null) {
+			SVGRasterizer.getInstance().cancel(requestedKey, rasterListener);
+			requestedKey = null;
+			requestedImageKey = null;
+		}
+	}
+
+	/**
+	 * Get the zoom bucket of a scale: the next power of two, so that zooming
+	 * transcodes the image once per bucket.
+	 */
+	private static double getZoomBucket(double scale) {
+		double bucket = Math.pow(2, Math.ceil(Math.log(scale) / Math.log(2)));
+		return Math.max(MIN_ZOOM_BUCKET, Math.min(MAX_ZOOM_BUCKET, bucket));
+	}
+
+	private void setImagePath(String path) {
+		if (path == null ? imagePath != null : !path.equals(imagePath)) {
+			releaseCachedImage();
+			imagePath = path;
+			if (listenedPath != null) {
+				updateSourceListener(path);
+			}
+		}
+	}
+
+	private void updateSourceListener(String path) {
+		if (path != null && path.equals(listenedPath)) {
+			return;
+		}
+		if (listenedPath != null) {
+			ImageSourceTracker.getInstance().removeListener(listenedPath, sourceListener);
+		}
+		listenedPath = path;
+		if (path != null) {
+			ImageSourceTracker.getInstance().addListener(path, sourceListener);
+		}
+	}
+
+	private void releaseCachedImage() {
+		cancelRaster();
+		if (cachedImage != null) {
+			SchematicImageCache.getInstance().release(cachedImage);
+			cachedImage = null;
+			cachedImageKey = null;
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		updateSourceListener(imagePath);
+	}
+
+	@Override
+	public void removeNotify() {
+		releaseCachedImage();
+		super.removeNotify();
+		updateSourceListener(null);
+	}
+
+	/**
+	 * Update the URI of the image, unless it is the same unmodified file. The
+	 * URI and the stamp are cached: no file system access.
+	 *
+	 * @return if the URI or the file has changed.
+	 */
 	private boolean updateImageURI(String workspacePath) {
+		boolean updated = false;
 		if (workspacePath != null) {
-			Option<String> existingImageUri = SchematicSVGWorkspaceImageFigure.getImageUri(workspacePath, false);
-			if (existingImageUri.some()) {
-				setURI(existingImageUri.get());
-			} else {
-				setURI(SVGFigure.IMAGE_NOT_FOUND_URI);
+			String uri = SVGDocumentCache.getInstance().getUri(workspacePath, path -> {
+				Option<String> existingImageUri = SchematicSVGWorkspaceImageFigure.getImageUri(path, false);
+				return existingImageUri.some() ? Optional.of(existingImageUri.get()) : Optional.empty();
+			}).orElse(SVGFigure.IMAGE_NOT_FOUND_URI);
+			String stamp = uri + "#" + ImageSourceTracker.getInstance().getModificationStamp(workspacePath);
+			if (!stamp.equals(contentStamp)) {
+				contentStamp = stamp;
+				setURI(uri);
+				updated = true;
 			}
-			return true;
 		}
-		return false;
+		return updated;
+	}
+
+	@Override
+	protected Document getDocument() {
+		return SVGDocumentCache.getInstance().getDocument(getURI(), this::parseDocument);
+	}
+
+	/**
+	 * Parse a document through Sirius, whose own cache is keyed by URI only.
+	 */
+	private Document parseDocument(String uri) {
+		doRemoveFromCache(uri);
+		return super.getDocument();
 	}
 
 	/**
@@ -10,18 +10,33 @@
 package com.navalgroup.capella.schematic.design.images.figures;
 
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.PositionConstants;
+import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.sirius.diagram.DDiagramElement;
 import org.eclipse.sirius.diagram.WorkspaceImage;
 import org.eclipse.sirius.diagram.ui.tools.api.figure.WorkspaceImageFigure;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.widgets.Display;
 import org.polarsys.capella.core.data.capellacore.CapellaElement;
 
+import com.navalgroup.capella.schematic.design.Messages;
 import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+import com.navalgroup.capella.schematic.design.images.cache.ImageDecoder;
+import com.navalgroup.capella.schematic.design.images.cache.ImageSourceTracker;
+import com.navalgroup.capella.schematic.design.images.cache.OrientationPrewarmJob;
+import com.navalgroup.capella.schematic.design.images.cache.PersistentImageCache;
+import com.navalgroup.capella.schematic.design.images.cache.SchematicImageCache;
 import com.navalgroup.capella.schematic.design.services.SchematicViewpointServices;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
 
 /**
  * WorkspaceImageFigure for Schematic to get image from property value and
@@ -31,15 +46,102 @@ import com.navalgroup.capella.schematic.design.services.SchematicViewpointServic
  * 
  */
 public class SchematicWorkspaceImageFigure extends WorkspaceImageFigure {
+	/**
+	 * Keys of the images being rotated in background.
+	 */
+	private static final Set<String> PENDING_ROTATIONS = ConcurrentHashMap.newKeySet();
+	/**
+	 * Classes of the graphics which do not support paint time transforms, such
+	 * as printing or export graphics, transformed images are painted instead.
+	 */
+	private static final Set<Class<?>> TRANSFORM_UNSUPPORTED_GRAPHICS = ConcurrentHashMap.newKeySet();
 	/**
 	 * Image Path.
 	 */
 	private String imgPath;
 	/**
 	 * Image position (default, 90 left, 90 right, 180, horizontal symmetry,
-	 * vertical symmetry).
+	 * vertical symmetry, transpose, anti-transpose), see {@link Orientation}.
 	 */
 	private int position;
+	/**
+	 * Image acquired from the {@link SchematicImageCache}, released when the
+	 * figure no longer paints it.
+	 */
+	private Image cachedImage;
+	/**
+	 * Path of the image file listened while the figure is displayed.
+	 */
+	private String listenedPath;
+	/**
+	 * Whether the image file has changed since the image was painted.
+	 */
+	private boolean sourceChanged;
+	/**
+	 * Key of the content of the image file, see
+	 * {@link SchematicImageCache#getContentKey(String)}.
+	 */
+	private String contentKey;
+	/**
+	 * Path of the image file of the content key.
+	 */
+	private String contentKeyPath;
+	/**
+	 * Placeholder of the image in its initial orientation, painted while the
+	 * figure is culled.
+	 */
+	private Image culledPlaceholder;
+	/**
+	 * Path of the image file of the culled placeholder.
+	 */
+	private String culledPlaceholderPath;
+	/**
+	 * Listener of the image file, the image is refreshed on next paint.
+	 */
+	private final Runnable sourceListener = () -> {
+		sourceChanged = true;
+		contentKeyPath = null;
+		culledPlaceholderPath = null;
+		repaint();
+	};
+	/**
+	 * Listener of the asynchronous decoding of the image, the placeholder is
+	 * replaced by the decoded image.
+	 */
+	private final Runnable decodeListener = this::refreshFigure;
+	/**
+	 * Listener of the loading of a downsampled image, the nearest level is
+	 * replaced by the loaded one on next paint.
+	 */
+	private final Runnable levelListener = () -> {
+		releaseLevelImage();
+		repaint();
+	};
+	/**
+	 * Downsampled image acquired from the {@link SchematicImageCache}, painted
+	 * at low zoom.
+	 */
+	private Image levelImage;
+	/**
+	 * Key of the downsampled image.
+	 */
+	private String levelKey;
+	/**
+	 * Whether the figure is far from the visible area and paints a placeholder,
+	 * see {@link ViewportCullingManager}.
+	 */
+	private boolean culled;
+	/**
+	 * Whether the figure keeps the image in its initial orientation and
+	 * transforms it at paint time.
+	 */
+	private boolean transformedAtPaint;
+	/**
+	 * Transformed image acquired from the {@link SchematicImageCache}, painted
+	 * instead of transforming the image when the graphics do not support
+	 * transforms.
+	 */
+	private Image fallbackImage;
 
 	/**
 	 * Constructor.
@@ -59,8 +161,31 @@ public class SchematicWorkspaceImageFigure extends WorkspaceImageFigure {
 	 * @return WorkspaceImageFigure
 	 */
 	public static WorkspaceImageFigure createImageFigure(final String path) {
-		final SchematicWorkspaceImageFigure fig = new SchematicWorkspaceImageFigure(
-				WorkspaceImageFigure.flyWeightImage(path));
+		Image image = null;
+		boolean culled = false;
+		if (ViewportCullingManager.isEnabled()) {
+			// the image is resolved once the figure is near the visible area
+			image = ImageDecoder.getInstance().getPlaceholder(path);
+			culled = image != null;
+		}
+		if (image == null && ImageDecoder.isEnabled()) {
+			// the figure starts with a placeholder of the image size
+			image = ImageDecoder.getInstance().getImage(path, null);
+		}
+		if (image == null) {
+			image = getNorthImageNow(path);
+		}
+		final SchematicWorkspaceImageFigure fig = new SchematicWorkspaceImageFigure(image);
+		fig.imgPath = path;
+		fig.culled = culled;
+		if (culled) {
+			fig.culledPlaceholder = image;
+			fig.culledPlaceholderPath = path;
+		}
+		if (!culled && ImageDecoder.getInstance().isPlaceholder(image)) {
+			// listen to the decoding
+			fig.refreshFigure();
+		}
 		return fig;
 	}
 
@@ -82,23 +207,406 @@ public class SchematicWorkspaceImageFigure extends WorkspaceImageFigure {
 			}
 		}
 		imgPath = path;
-		final Image image = WorkspaceImageFigure.flyWeightImage(path);
+		if (getParent() != null) {
+			updateSourceListener(path);
+		}
+		Image image = null;
+		if (culled) {
+			image = getCulledImage();
+		}
+		if (image == null) {
+			image = getNorthImage(path);
+		}
+		OrientationPrewarmJob.getInstance().prewarm(path);
 		if (image == this.getImage()) {
 			return;
 		}
-		this.setImage(image);
-		this.repaint();
+		updateImage(image);
 	}
 
 	private void refreshFigure() {
-		Image image = getImage(imgPath, position);
+		transformedAtPaint = isPaintTimeTransform();
+		Image image = null;
+		if (culled) {
+			image = getCulledImage();
+		}
+		if (image == null) {
+			image = getImage(imgPath, getImageOrientation());
+		}
 		if (image == this.getImage()) {
 			return;
 		}
+		updateImage(image);
+	}
+
+	/**
+	 * Resolve or release the image of the figure.
+	 *
+	 * @param isCulled
+	 *            whether the figure is far from the visible area
+	 */
+	void setCulled(boolean isCulled) {
+		if (culled != isCulled) {
+			culled = isCulled;
+			refreshFigure();
+		}
+	}
+
+	/**
+	 * Get the placeholder painted while the figure is far from the visible
+	 * area, the size of the image is read once until the file changes.
+	 *
+	 * @return the placeholder or null if the size of the image cannot be read.
+	 */
+	private Image getCulledImage() {
+		if (imgPath == null) {
+			return null;
+		}
+		if (!imgPath.equals(culledPlaceholderPath)
+				|| (culledPlaceholder != null && culledPlaceholder.isDisposed())) {
+			culledPlaceholder = ImageDecoder.getInstance().getPlaceholder(imgPath);
+			culledPlaceholderPath = imgPath;
+		}
+		Image placeholder = culledPlaceholder;
+		if (placeholder != null) {
+			placeholder = ImageDecoder.getInstance().getPlaceholder(placeholder, getImageOrientation());
+		}
+		return placeholder;
+	}
+
+	private void updateImage(Image image) {
+		releaseLevelImage();
+		releaseFallbackImage();
+		SchematicImageCache cache = SchematicImageCache.getInstance();
+		if (cachedImage != null) {
+			cache.release(cachedImage);
+			cachedImage = null;
+		}
+		if (image != null && cache.acquire(image)) {
+			cachedImage = image;
+		}
 		this.setImage(image);
 		this.repaint();
 	}
 
+	@Override
+	protected void paintFigure(Graphics graphics) {
+		if (culled) {
+			// painted on the screen, printed or exported: the image is resolved
+			// before the viewport update
+			setCulled(false);
+		}
+		if (sourceChanged || transformedAtPaint != isPaintTimeTransform()) {
+			sourceChanged = false;
+			refreshFigure();
+		}
+		if (imgPath != null && !culled && ImageDecoder.getInstance().isPlaceholder(getImage())) {
+			// the figure is visible, its image is decoded first
+			ImageDecoder.getInstance().prioritize(imgPath);
+		}
+		Image image = getLevelImage(graphics.getAbsoluteScale());
+		Orientation orientation = Orientation.fromPosition(position);
+		if (transformedAtPaint && orientation != Orientation.NORTH) {
+			paintTransformed(graphics, orientation, image);
+		} else {
+			paintImage(graphics, image);
+		}
+	}
+
+	/**
+	 * Paint an image over the client area, or the figure image if none.
+	 */
+	private void paintImage(Graphics graphics, Image image) {
+		if (image == null) {
+			super.paintFigure(graphics);
+		} else {
+			Rectangle clientArea = getClientArea();
+			org.eclipse.swt.graphics.Rectangle imageBounds = image.getBounds();
+			graphics.pushState();
+			if (isTransparent()) {
+				graphics.setAlpha(getSiriusAlpha());
+			}
+			graphics.drawImage(image, 0, 0, imageBounds.width, imageBounds.height, clientArea.x, clientArea.y,
+					clientArea.width, clientArea.height);
+			graphics.popState();
+		}
+	}
+
+	/**
+	 * Paint the image in its initial orientation through a rotation and a
+	 * mirroring around the center of the figure, or paint the transformed image
+	 * if the graphics do not support transforms. Draw2D scaled graphics, used
+	 * at any zoom other than 100%, and printing or export graphics do not
+	 * support transforms: the transformed image is then kept until the
+	 * graphics support transforms again.
+	 */
+	private void paintTransformed(Graphics graphics, Orientation orientation, Image image) {
+		graphics.pushState();
+		try {
+			if (transform(graphics, orientation)) {
+				releaseFallbackImage();
+				paintImage(graphics, image);
+				return;
+			}
+		} finally {
+			graphics.popState();
+		}
+		if (imgPath != null) {
+			updateFallbackImage(getImage(imgPath, orientation));
+		}
+		paintImage(graphics, fallbackImage);
+	}
+
+	private void updateFallbackImage(Image image) {
+		if (image == fallbackImage) {
+			return;
+		}
+		releaseFallbackImage();
+		if (image != null && SchematicImageCache.getInstance().acquire(image)) {
+			fallbackImage = image;
+		}
+	}
+
+	private void releaseFallbackImage() {
+		if (fallbackImage != null) {
+			SchematicImageCache.getInstance().release(fallbackImage);
+			fallbackImage = null;
+		}
+	}
+
+	/**
+	 * Apply the transform of an orientation around the center of the figure.
+	 * When axes are swapped, the image is first scaled so that it fills the
+	 * bounds once rotated.
+	 *
+	 * @return false if the graphics do not support transforms.
+	 */
+	private boolean transform(Graphics graphics, Orientation orientation) {
+		Class<?> graphicsClass = graphics.getClass();
+		if (TRANSFORM_UNSUPPORTED_GRAPHICS.contains(graphicsClass)) {
+			return false;
+		}
+		Rectangle bounds = getBounds();
+		int centerX = bounds.x + bounds.width / 2;
+		int centerY = bounds.y + bounds.height / 2;
+		float scaleX = 1;
+		float scaleY = 1;
+		if (orientation.isSwappingAxes() && !bounds.isEmpty()) {
+			scaleX = (float) bounds.height / bounds.width;
+			scaleY = (float) bounds.width / bounds.height;
+		}
+		if (orientation.isMirroring()) {
+			scaleX = -scaleX;
+		}
+		boolean transformed;
+		try {
+			graphics.translate(centerX, centerY);
+			graphics.rotate(orientation.getRotation());
+			graphics.scale(scaleX, scaleY);
+			graphics.translate(-centerX, -centerY);
+			transformed = true;
+		} catch (RuntimeException e) {
+			// Draw2D graphics throw a RuntimeException, SWT graphics an
+			// SWTException without advanced graphics, for unsupported transforms
+			transformed = false;
+			if (TRANSFORM_UNSUPPORTED_GRAPHICS.add(graphicsClass)) {
+				SchematicDesignPlugin.getPlugin().logWarning(String.format(
+						Messages.SchematicWorkspaceImageFigure_TransformUnsupported, graphicsClass.getName()), e);
+			}
+		}
+		return transformed;
+	}
+
+	/**
+	 * Check if images are transformed at paint time instead of creating
+	 * transformed images. The transformed images are still created for the
+	 * graphics which do not support transforms, such as the scaled graphics
+	 * used at any zoom other than 100%.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isPaintTimeTransform() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.PAINT_TIME_TRANSFORM_PREF_ID);
+	}
+
+	/**
+	 * Get the orientation of the image held by the figure.
+	 *
+	 * @return NORTH if the image is transformed at paint time, the figure
+	 *         orientation otherwise.
+	 */
+	private Orientation getImageOrientation() {
+		if (transformedAtPaint) {
+			return Orientation.NORTH;
+		}
+		return Orientation.fromPosition(position);
+	}
+
+	/**
+	 * Get the downsampled image closest to the screen size of the figure,
+	 * loaded on the {@link ImageDecoder} workers. The nearest larger level
+	 * available is painted meanwhile.
+	 *
+	 * @return the downsampled image or null to paint the figure image.
+	 */
+	private Image getLevelImage(double scale) {
+		Image image = getImage();
+		int level = 0;
+		if (image != null && imgPath != null && !ImageDecoder.getInstance().isPlaceholder(image)
+				&& !ImageDecoder.getInstance().isFailed(imgPath)
+				&& !PENDING_ROTATIONS.contains(getKey(imgPath, getImageOrientation()))) {
+			int imageWidth = image.getBounds().width;
+			int imageHeight = image.getBounds().height;
+			if (transformedAtPaint && Orientation.fromPosition(position).isSwappingAxes()) {
+				// the image is rotated at paint time
+				imageWidth = image.getBounds().height;
+				imageHeight = image.getBounds().width;
+			}
+			Rectangle bounds = getBounds();
+			double width = bounds.width * scale;
+			double height = bounds.height * scale;
+			while (!bounds.isEmpty() && level < ImageDataDownsampler.MAX_LEVEL
+					&& ImageDataDownsampler.getSize(imageWidth, level + 1) >= width
+					&& ImageDataDownsampler.getSize(imageHeight, level + 1) >= height) {
+				level++;
+			}
+		}
+		if (level == 0) {
+			releaseLevelImage();
+		} else {
+			String key = getKey(imgPath, getImageOrientation(), level);
+			if (!key.equals(levelKey)) {
+				releaseLevelImage();
+				levelImage = createLevelImage(level);
+				levelKey = key;
+				if (levelImage != null) {
+					SchematicImageCache.getInstance().acquire(levelImage);
+				}
+			}
+		}
+		return levelImage;
+	}
+
+	/**
+	 * Get a cached downsampled image or request it.
+	 *
+	 * @return the image, the nearest larger level while loading, or null to
+	 *         paint the figure image.
+	 */
+	private Image createLevelImage(int level) {
+		Orientation orientation = getImageOrientation();
+		Image image = SchematicImageCache.getInstance().get(getKey(imgPath, orientation, level));
+		if (image == null) {
+			String path = imgPath;
+			ImageDecoder.getInstance().load(getKey(path, orientation, level), path,
+					() -> loadLevel(path, orientation, level), levelListener);
+			for (int nearest = level - 1; image == null && nearest > 0; nearest--) {
+				image = SchematicImageCache.getInstance().peek(getKey(path, orientation, nearest));
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Compute a downsampled image out of the UI thread, from the nearest
+	 * larger level stored in the {@link PersistentImageCache}, or from the
+	 * image file.
+	 *
+	 * @return the image data or null if the file is not a readable image.
+	 */
+	private static ImageData loadLevel(String path, Orientation orientation, int level) {
+		PersistentImageCache persistentCache = PersistentImageCache.getInstance();
+		int sourceLevel = level;
+		ImageData data = persistentCache.read(path, orientation, sourceLevel);
+		while (data == null && sourceLevel > 0) {
+			sourceLevel--;
+			data = persistentCache.read(path, orientation, sourceLevel);
+		}
+		if (data == null) {
+			data = loadOrientation(path, orientation);
+		}
+		while (data != null && sourceLevel < level) {
+			data = ImageDataDownsampler.halve(data);
+			sourceLevel++;
+			persistentCache.write(path, orientation, sourceLevel, data);
+		}
+		return data;
+	}
+
+	/**
+	 * Compute an image in an orientation out of the UI thread, from the
+	 * {@link PersistentImageCache} or from the image file.
+	 *
+	 * @return the image data or null if the file is not a readable image.
+	 */
+	private static ImageData loadOrientation(String path, Orientation orientation) {
+		ImageData data = null;
+		if (orientation != Orientation.NORTH) {
+			data = PersistentImageCache.getInstance().read(path, orientation, 0);
+		}
+		if (data == null) {
+			data = ImageDecoder.readImage(path);
+			if (data != null && orientation != Orientation.NORTH) {
+				data = ImageDataTransformer.transform(data, orientation);
+				PersistentImageCache.getInstance().write(path, orientation, 0, data);
+			}
+		}
+		return data;
+	}
+
+	private void releaseLevelImage() {
+		if (levelImage != null) {
+			SchematicImageCache.getInstance().release(levelImage);
+			levelImage = null;
+		}
+		levelKey = null;
+	}
+
+	private void updateSourceListener(String path) {
+		if (path != null && path.equals(listenedPath)) {
+			return;
+		}
+		if (listenedPath != null) {
+			ImageSourceTracker.getInstance().removeListener(listenedPath, sourceListener);
+		}
+		listenedPath = path;
+		if (path != null) {
+			ImageSourceTracker.getInstance().addListener(path, sourceListener);
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		updateSourceListener(imgPath);
+		if (ViewportCullingManager.isEnabled()) {
+			ViewportCullingManager.register(this);
+		}
+		Image image = getImage();
+		if (cachedImage == null && image != null) {
+			if (SchematicImageCache.getInstance().acquire(image)) {
+				cachedImage = image;
+			} else {
+				// the cached image has been disposed while the figure was removed
+				refreshFigure();
+			}
+		}
+	}
+
+	@Override
+	public void removeNotify() {
+		if (cachedImage != null) {
+			SchematicImageCache.getInstance().release(cachedImage);
+			cachedImage = null;
+		}
+		releaseLevelImage();
+		releaseFallbackImage();
+		ViewportCullingManager.unregister(this);
+		super.removeNotify();
+		updateSourceListener(null);
+	}
+
 	/**
 	 * Set position and refresh figure.
 	 *
@@ -110,101 +618,148 @@ public class SchematicWorkspaceImageFigure extends WorkspaceImageFigure {
 		refreshFigure();
 	}
 
-	private Image getImage(String path, int direction) {
-		String key = getKey(path, direction);
-		Image image = getImageFromRegistry(key);
+	private Image getImage(String path, Orientation orientation) {
+		if (orientation == Orientation.NORTH) {
+			return getNorthImage(path);
+		}
+		String key = getKey(path, orientation);
+		Image image = SchematicImageCache.getInstance().get(key);
+		if (image == null && PersistentImageCache.isEnabled()) {
+			Image sourceImage = getNorthImage(path);
+			if (!ImageDecoder.getInstance().isPlaceholder(sourceImage) && !ImageDecoder.getInstance().isFailed(path)) {
+				// read or transformed on the decoder workers, a placeholder of
+				// the image size meanwhile
+				ImageDecoder.getInstance().load(key, path, () -> loadOrientation(path, orientation), decodeListener);
+				image = ImageDecoder.getInstance().getPlaceholder(sourceImage, orientation);
+			}
+		}
 		if (image == null) {
-			// We have to create and store the image
-			if (direction == PositionConstants.NORTH) {
-				image = flyWeightImage(imgPath);
+			// We have to transform the cached orientation which is the cheapest to
+			// transform, the default image (NORTH) if none
+			Orientation source = Orientation.NORTH;
+			Image sourceImage = null;
+			for (Orientation cached : Orientation.values()) {
+				if (cached.to(orientation).getCost() < source.to(orientation).getCost()) {
+					Image cachedImg = SchematicImageCache.getInstance().peek(getKey(path, cached));
+					if (cachedImg != null) {
+						source = cached;
+						sourceImage = cachedImg;
+					}
+				}
+			}
+			if (sourceImage == null) {
+				sourceImage = getNorthImage(path);
+			}
+			if (ImageDecoder.getInstance().isPlaceholder(sourceImage)) {
+				// rotated once decoded, the placeholder is not cached
+				image = ImageDecoder.getInstance().getPlaceholder(sourceImage, orientation);
 			} else {
-				// We have to rotate the default image (NORTH)
-				Image northImage = getImage(path, PositionConstants.NORTH);
-				image = rotate(northImage, direction);
+				image = transform(key, path, sourceImage, source, orientation);
 			}
-			putImageInRegistry(key, image);
 		}
 		return image;
 	}
 
-	private String getKey(String path, int direction) {
-		return path + "?" + direction;
-	}
-
-	private Image getImageFromRegistry(String key) {
-		return SchematicDesignPlugin.getPlugin().getImageRegistry().get(key);
-	}
-
-	private void putImageInRegistry(String key, Image image) {
-		if (SchematicDesignPlugin.getPlugin().getImageRegistry().get(key) == null) {
-			SchematicDesignPlugin.getPlugin().getImageRegistry().put(key, image);
-		}
-	}
-
-	private static Image rotate(Image image, int direction) {
-		ImageData srcData = image.getImageData();
-
-		int bytesPerPixel = srcData.bytesPerLine / srcData.width;
-		boolean noRotation = direction == PositionConstants.HORIZONTAL || direction == PositionConstants.VERTICAL
-				|| direction == PositionConstants.SOUTH;
-		int destBytesPerLine = noRotation ? srcData.width * bytesPerPixel : srcData.height * bytesPerPixel;
-		byte[] newData = new byte[srcData.data.length];
-
-		boolean isAlpha = srcData.alphaData != null;
-		byte[] newAlphaData = null;
-
-		if (isAlpha) {
-			newAlphaData = new byte[srcData.alphaData.length];
-		}
-		ImageData imgData = new ImageData(noRotation ? srcData.width : srcData.height,
-				noRotation ? srcData.height : srcData.width, srcData.depth, srcData.palette, destBytesPerLine, newData);
-		if (isAlpha) {
-			imgData.alphaData = newAlphaData;
-		}
-		imgData.alpha = srcData.alpha;
-
-		for (int srcY = 0; srcY < srcData.height; srcY++) {
-			for (int srcX = 0; srcX < srcData.width; srcX++) {
-				int destX;
-				int destY;
-				switch (direction) {
-				// left 90 degrees
-				case PositionConstants.WEST:
-					destX = srcY;
-					destY = srcData.width - srcX - 1;
-					break;
-				// right 90 degrees
-				case PositionConstants.EAST:
-					destX = srcData.height - srcY - 1;
-					destY = srcX;
-					break;
-				// horizontal symmetry
-				case PositionConstants.HORIZONTAL:
-					destX = srcData.width - srcX - 1;
-					destY = srcY;
-					break;
-				// vertical symmetry
-				case PositionConstants.VERTICAL:
-					destX = srcX;
-					destY = srcData.height - srcY - 1;
-					break;
-				// rotation 180 degrees
-				case PositionConstants.SOUTH:
-					destX = srcData.width - srcX - 1;
-					destY = srcData.height - srcY - 1;
-					break;
-				default:
-					destX = 0;
-					destY = 0;
-				}
+	private Image transform(String key, String path, Image sourceImage, Orientation source, Orientation orientation) {
+		Image image;
+		ImageData sourceData = sourceImage.getImageData();
+		Orientation transformation = source.to(orientation);
+		Display display = Display.getCurrent();
+		if (display != null && (long) sourceData.width * sourceData.height >= getParallelRotationThreshold()) {
+			rotateInBackground(key, display, sourceData, transformation, orientation);
+			// keep the current image until the rotated one is ready
+			image = getImage();
+		} else {
+			ImageData data = ImageDataTransformer.transform(sourceData, transformation);
+			PersistentImageCache.getInstance().write(path, orientation, 0, data);
+			image = SchematicImageCache.getInstance().put(key, path, new Image(sourceImage.getDevice(), data));
+		}
+		return image;
+	}
 
-				imgData.setPixel(destX, destY, srcData.getPixel(srcX, srcY));
-				if (isAlpha) {
-					imgData.setAlpha(destX, destY, srcData.getAlpha(srcX, srcY));
-				}
-			}
+	/**
+	 * Rotate the pixels out of the UI thread, only the image is created in the
+	 * UI thread. The figure is refreshed once the image is ready.
+	 */
+	private void rotateInBackground(String key, Display display, ImageData sourceData, Orientation transformation,
+			Orientation orientation) {
+		if (!PENDING_ROTATIONS.add(key)) {
+			return;
+		}
+		String path = imgPath;
+		CompletableFuture.supplyAsync(() -> ImageDataTransformer.transformParallel(sourceData, transformation))
+				.whenComplete((imgData, exception) -> {
+					if (exception == null) {
+						PersistentImageCache.getInstance().write(path, orientation, 0, imgData);
+					}
+					if (display.isDisposed()) {
+						PENDING_ROTATIONS.remove(key);
+						return;
+					}
+					display.asyncExec(() -> {
+						PENDING_ROTATIONS.remove(key);
+						if (exception != null) {
+							SchematicDesignPlugin.getPlugin().logError(
+									String.format(Messages.SchematicWorkspaceImageFigure_RotationFailed, key),
+									exception);
+						} else {
+							SchematicImageCache.getInstance().put(key, path, new Image(display, imgData));
+							refreshFigure();
+						}
+					});
+				});
+	}
+
+	/**
+	 * Get the image in its initial orientation from the
+	 * {@link SchematicImageCache}.
+	 */
+	private Image getNorthImage(String path) {
+		Image image = null;
+		if (ImageDecoder.isEnabled()) {
+			image = ImageDecoder.getInstance().getImage(path, decodeListener);
+		}
+		if (image == null) {
+			image = getNorthImageNow(path);
+		}
+		return image;
+	}
+
+	/**
+	 * Get the image in its initial orientation decoded in the UI thread, or
+	 * the Sirius image not found. The Sirius images of the workspace files are
+	 * cached by path and never evicted, so they are not used: the decoded image
+	 * is shared by the identical files and invalidated when the file changes.
+	 */
+	private static Image getNorthImageNow(String path) {
+		Image image = ImageDecoder.getInstance().getImageNow(path);
+		if (image == null) {
+			image = WorkspaceImageFigure.flyWeightImage((ImageDescriptor) null);
 		}
+		return image;
+	}
+
+	private static int getParallelRotationThreshold() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getInt(SchematicPreferencePage.PARALLEL_ROTATION_THRESHOLD_PREF_ID);
+	}
 
-		return new Image(image.getDevice(), imgData);
+	private String getKey(String path, Orientation orientation) {
+		return getKey(path, orientation, 0);
+	}
+
+	/**
+	 * Get the key of an image, the content hash of the file is kept once known
+	 * until the file changes.
+	 */
+	private String getKey(String path, Orientation orientation, int level) {
+		if (!path.equals(contentKeyPath)) {
+			contentKey = SchematicImageCache.getContentKey(path);
+			// the path keys the images until the decoder hashes the file
+			if (SchematicImageCache.isContentHash(contentKey)) {
+				contentKeyPath = path;
+			}
+		}
+		return SchematicImageCache.toKey(contentKey, orientation.getPosition(), level);
 	}
 }
@@ -0,0 +1,217 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.images.figures;
+
+import java.beans.PropertyChangeListener;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.draw2d.FigureListener;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.swt.widgets.Display;
+
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Culling of the Schematic image figures of a viewport. Figures whose bounds
+ * intersect the visible area extended by a margin paint their image, figures
+ * far from it paint a placeholder and release their image into the
+ * {@link com.navalgroup.capella.schematic.design.images.cache.SchematicImageCache}.
+ * The release margin is larger than the resolve margin, so that figures on the
+ * border are not resolved and released on each scroll. Visibility is decided
+ * when a laid out figure is added, then updated once per UI event loop when
+ * the viewport is scrolled or a figure moves. A culled figure which is painted
+ * anyway, when printed or exported, resolves its image itself. Figures outside
+ * of a viewport are never culled.
+ */
+public final class ViewportCullingManager {
+
+	/**
+	 * Margin around the visible area where images are resolved, as a fraction
+	 * of the visible area size.
+	 */
+	private static final double RESOLVE_MARGIN = 0.5;
+
+	/**
+	 * Margin around the visible area beyond which images are released, as a
+	 * fraction of the visible area size.
+	 */
+	private static final double RELEASE_MARGIN = 1.5;
+
+	/**
+	 * Managers by viewport, removed with their last figure, accessed in the UI
+	 * thread.
+	 */
+	private static final Map<Viewport, ViewportCullingManager> MANAGERS = new HashMap<>();
+
+	/**
+	 * Managed viewport.
+	 */
+	private final Viewport viewport;
+
+	/**
+	 * Figures displayed in the viewport.
+	 */
+	private final Set<SchematicWorkspaceImageFigure> figures = new LinkedHashSet<>();
+
+	/**
+	 * Whether an update is scheduled.
+	 */
+	private boolean updateScheduled;
+
+	/**
+	 * Listener of the scroll of the viewport.
+	 */
+	private final PropertyChangeListener rangeListener = event -> scheduleUpdate();
+
+	/**
+	 * Listener of the moves of the figures and of the viewport.
+	 */
+	private final FigureListener moveListener = source -> scheduleUpdate();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param viewport
+	 *            Viewport
+	 */
+	private ViewportCullingManager(Viewport viewport) {
+		this.viewport = viewport;
+	}
+
+	/**
+	 * Check if images are resolved only near the visible area.
+	 *
+	 * @return if the preference is enabled.
+	 */
+	public static boolean isEnabled() {
+		return SchematicUIPlugin.getPlugin().getPreferenceStore()
+				.getBoolean(SchematicPreferencePage.VIRTUALIZED_IMAGES_PREF_ID);
+	}
+
+	/**
+	 * Manage a figure added to a viewport.
+	 *
+	 * @param figure
+	 *            SchematicWorkspaceImageFigure
+	 */
+	static void register(SchematicWorkspaceImageFigure figure) {
+		Viewport viewport = getViewport(figure);
+		if (viewport == null) {
+			figure.setCulled(false);
+		} else {
+			ViewportCullingManager manager = MANAGERS.get(viewport);
+			if (manager == null) {
+				manager = new ViewportCullingManager(viewport);
+				manager.install();
+				MANAGERS.put(viewport, manager);
+			}
+			if (manager.figures.add(figure)) {
+				figure.addFigureListener(manager.moveListener);
+			}
+			if (figure.isValid()) {
+				// moved figures are decided now, new figures once laid out
+				Rectangle visible = manager.getVisibleArea();
+				update(figure, expand(visible, RESOLVE_MARGIN), expand(visible, RELEASE_MARGIN));
+			}
+			manager.scheduleUpdate();
+		}
+	}
+
+	/**
+	 * Stop managing a figure removed from its viewport.
+	 *
+	 * @param figure
+	 *            SchematicWorkspaceImageFigure
+	 */
+	static void unregister(SchematicWorkspaceImageFigure figure) {
+		Viewport viewport = getViewport(figure);
+		ViewportCullingManager manager = null;
+		if (viewport != null) {
+			manager = MANAGERS.get(viewport);
+		}
+		if (manager != null && manager.figures.remove(figure)) {
+			figure.removeFigureListener(manager.moveListener);
+			if (manager.figures.isEmpty()) {
+				manager.uninstall();
+				MANAGERS.remove(viewport);
+			}
+		}
+	}
+
+	private void install() {
+		viewport.getHorizontalRangeModel().addPropertyChangeListener(rangeListener);
+		viewport.getVerticalRangeModel().addPropertyChangeListener(rangeListener);
+		viewport.addFigureListener(moveListener);
+	}
+
+	private void uninstall() {
+		viewport.getHorizontalRangeModel().removePropertyChangeListener(rangeListener);
+		viewport.getVerticalRangeModel().removePropertyChangeListener(rangeListener);
+		viewport.removeFigureListener(moveListener);
+	}
+
+	private void scheduleUpdate() {
+		Display display = Display.getCurrent();
+		if (!updateScheduled && display != null) {
+			updateScheduled = true;
+			display.asyncExec(this::update);
+		}
+	}
+
+	/**
+	 * Resolve the images of the figures near the visible area and release the
+	 * images of the figures far from it.
+	 */
+	private void update() {
+		updateScheduled = false;
+		Rectangle visible = getVisibleArea();
+		Rectangle resolveArea = expand(visible, RESOLVE_MARGIN);
+		Rectangle releaseArea = expand(visible, RELEASE_MARGIN);
+		for (SchematicWorkspaceImageFigure figure : figures.toArray(new SchematicWorkspaceImageFigure[0])) {
+			update(figure, resolveArea, releaseArea);
+		}
+	}
+
+	private Rectangle getVisibleArea() {
+		Rectangle visible = viewport.getBounds().getCopy();
+		viewport.translateToAbsolute(visible);
+		return visible;
+	}
+
+	private static void update(SchematicWorkspaceImageFigure figure, Rectangle resolveArea, Rectangle releaseArea) {
+		Rectangle bounds = figure.getBounds().getCopy();
+		figure.translateToAbsolute(bounds);
+		if (bounds.intersects(resolveArea)) {
+			figure.setCulled(false);
+		} else if (!bounds.intersects(releaseArea)) {
+			figure.setCulled(true);
+		}
+	}
+
+	private static Rectangle expand(Rectangle area, double margin) {
+		int horizontal = (int) (area.width * margin);
+		int vertical = (int) (area.height * margin);
+		return area.getExpanded(horizontal, vertical);
+	}
+
+	private static Viewport getViewport(IFigure figure) {
+		IFigure parent = figure.getParent();
+		while (parent != null && !(parent instanceof Viewport)) {
+			parent = parent.getParent();
+		}
+		return (Viewport) parent;
+	}
+}
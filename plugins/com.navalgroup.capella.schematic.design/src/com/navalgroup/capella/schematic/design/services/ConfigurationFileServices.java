@@ -9,19 +9,14 @@
  ******************************************************************************/
 package com.navalgroup.capella.schematic.design.services;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Properties;
-
-import org.eclipse.sirius.diagram.ui.internal.refresh.listeners.WorkspaceFileResourceChangeListener;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.navalgroup.capella.schematic.design.Messages;
-import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+import com.navalgroup.capella.schematic.design.services.ConfigurationImageIndex.ImageEntry;
+import com.navalgroup.capella.schematic.design.services.ConfigurationImageIndex.ImageStatus;
 import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
 
 /**
@@ -30,7 +25,6 @@ import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
  * @author <a href="mailto:nathalie.lepine@obeo.fr">Nathalie Lepine</a>
  *
  */
-@SuppressWarnings("restriction")
 public final class ConfigurationFileServices {
 
 	/**
@@ -48,6 +42,16 @@ public final class ConfigurationFileServices {
 	 */
 	public static final String FILE_SEPARATOR = "/";
 
+	/**
+	 * Generation counter of configuration snapshots.
+	 */
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	/**
+	 * Current configuration snapshot, null if it has to be (re)loaded.
+	 */
+	private static volatile ConfigurationSnapshot snapshot;
+
 	/**
 	 * Constructor.
 	 */
@@ -74,9 +78,9 @@ public final class ConfigurationFileServices {
 	 * @return the value corresponding to the key in configuration file.
 	 */
 	public static Optional<String> getConfigurationImagePropertyValue(String key) {
-		Optional<Properties> properties = getConfigurationFileProperties();
-		if (properties.isPresent()) {
-			return getValidImageProperty(properties.get(), key);
+		ConfigurationSnapshot configuration = getConfigurationSnapshot();
+		if (configuration.isLoaded()) {
+			return getValidImageProperty(configuration, key);
 		}
 		return Optional.empty();
 	}
@@ -90,9 +94,9 @@ public final class ConfigurationFileServices {
 	 * @return the value corresponding to the key in configuration file.
 	 */
 	public static Optional<String> getConfigurationPropertyValue(String key) {
-		Optional<Properties> properties = getConfigurationFileProperties();
-		if (properties.isPresent()) {
-			return getProperty(properties.get(), key);
+		ConfigurationSnapshot configuration = getConfigurationSnapshot();
+		if (configuration.isLoaded()) {
+			return getProperty(configuration, key);
 		}
 		return Optional.empty();
 	}
@@ -100,91 +104,111 @@ public final class ConfigurationFileServices {
 	/**
 	 * Get properties from configuration file if exists.
 	 * 
-	 * @return properties from Configuration file.
+	 * @return a copy of properties from Configuration file.
 	 */
 	public static Optional<Properties> getConfigurationFileProperties() {
-		// get configuration path from preferences.
-		String configurationFilePath = com.navalgroup.capella.schematic.ui.SchematicUIPlugin.getPlugin()
-				.getPreferenceStore().getString(SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID);
-		if (configurationFilePath == null || configurationFilePath.isEmpty()) {
-			SchematicDesignPlugin.getPlugin()
-					.logWarning(Messages.ConfigurationFileService_NoConfigurationFileInPreference);
-		} else {
-			// try to load properties configuration file
-			final Properties properties = new Properties();
-			try {
-				final BufferedReader reader = Files.newBufferedReader(Paths.get(configurationFilePath));
-				properties.load(reader);
-				reader.close();
-				return Optional.ofNullable(properties);
-			} catch (IOException ioException) {
-				SchematicDesignPlugin.getPlugin()
-						.logError(String.format(Messages.ConfigurationFileService_CouldNotLoadConfigurationFile,
-								configurationFilePath.toString()), ioException);
-			}
+		return getConfigurationSnapshot().toProperties();
+	}
+
+	/**
+	 * Get the current configuration snapshot. The configuration file is only read
+	 * the first time and after each invalidation, readers do not lock.
+	 * 
+	 * @return the current configuration snapshot.
+	 */
+	public static ConfigurationSnapshot getConfigurationSnapshot() {
+		ConfigurationSnapshot current = snapshot;
+		if (current == null) {
+			current = loadConfigurationSnapshot();
 		}
-		return Optional.empty();
+		return current;
+	}
+
+	/**
+	 * Invalidate the current configuration snapshot. It will be reloaded at next
+	 * access.
+	 */
+	public static synchronized void invalidate() {
+		GENERATION.incrementAndGet();
+		snapshot = null;
+	}
+
+	/**
+	 * Update the image index of the current configuration snapshot for changed
+	 * workspace resources.
+	 * 
+	 * @param workspacePaths
+	 *            workspace paths of changed files or opened/closed projects
+	 */
+	public static void workspaceResourcesChanged(Collection<String> workspacePaths) {
+		ConfigurationSnapshot current = snapshot;
+		if (current != null && !workspacePaths.isEmpty()) {
+			current.getImageIndex().revalidate(workspacePaths);
+		}
+	}
+
+	private static synchronized ConfigurationSnapshot loadConfigurationSnapshot() {
+		ConfigurationSnapshot current = snapshot;
+		if (current == null) {
+			// get configuration path from preferences.
+			String configurationFilePath = com.navalgroup.capella.schematic.ui.SchematicUIPlugin.getPlugin()
+					.getPreferenceStore().getString(SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID);
+			current = ConfigurationSnapshot.load(configurationFilePath, GENERATION.get());
+			snapshot = current;
+		}
+		return current;
 	}
 
 	/**
 	 * Check if property path is not null, is not empty and references an image.
+	 * The image is resolved from the index built when the configuration has been
+	 * loaded, without file system access. Failing lookups are reported once per
+	 * configuration load.
 	 * 
-	 * @param properties
-	 *            Properties
+	 * @param configuration
+	 *            ConfigurationSnapshot
 	 * @param key
 	 *            String
 	 * @return if property path is not null, is not empty and references an image.
 	 */
-	// CHECKSTYLE:OFF
-	private static Optional<String> getValidImageProperty(Properties properties, String key) {
-		if (properties.containsKey(key)) {
-			String property = properties.getProperty(key);
-			if (property != null && !property.isEmpty()) {
-				File imageFile = WorkspaceFileResourceChangeListener.getInstance().getFileFromURI(property);
-				if (imageFile != null) {
-					Path imagePath = Paths.get(imageFile.getAbsolutePath());
-					if (Files.exists(imagePath) && Files.isRegularFile(imagePath)) {
-						if (!property.startsWith(FILE_SEPARATOR)) {
-							property = FILE_SEPARATOR + property;
-						}
-						return Optional.ofNullable(property);
-					}
-				} else {
-					SchematicDesignPlugin.getPlugin()
-							.logError(String.format(Messages.ConfigurationFileService_ImageFileNotFound, key));
-				}
-			} else {
-				SchematicDesignPlugin.getPlugin().logError(
-						String.format(Messages.ConfigurationFileService_WrongConfigurationPropertyValue, key));
-			}
+	private static Optional<String> getValidImageProperty(ConfigurationSnapshot configuration, String key) {
+		ImageEntry entry = configuration.getImageIndex().get(key);
+		if (entry == null && configuration.get(key) == null) {
+			configuration.getProblemReporter().record(Messages.ConfigurationFileService_NoConfigurationPropertyValue,
+					key);
+		} else if (entry == null || entry.getStatus() == ImageStatus.WRONG_VALUE) {
+			// the value is empty or does not name an image file
+			configuration.getProblemReporter()
+					.record(Messages.ConfigurationFileService_WrongConfigurationPropertyValue, key);
+		} else if (entry.getStatus() == ImageStatus.NOT_FOUND) {
+			configuration.getProblemReporter().record(Messages.ConfigurationFileService_ImageFileNotFound, key);
 		} else {
-			SchematicDesignPlugin.getPlugin()
-					.logError(String.format(Messages.ConfigurationFileService_NoConfigurationPropertyValue, key));
+			return Optional.of(entry.getPath());
 		}
 		return Optional.empty();
 	}
-	// CHECKSTYLE:ON
 
 	/**
-	 * Get value property key or Optional.empty.
+	 * Get value property key or Optional.empty. Failing lookups are reported once
+	 * per configuration load.
 	 * 
-	 * @param properties
-	 *            Properties
+	 * @param configuration
+	 *            ConfigurationSnapshot
 	 * @param key
 	 *            String
 	 * @return value property key or Optional.empty.
 	 */
-	private static Optional<String> getProperty(Properties properties, String key) {
-		if (properties.containsKey(key)) {
-			String property = properties.getProperty(key);
-			if (property != null && !property.isEmpty()) {
-				return Optional.ofNullable(property);
-			}
-			SchematicDesignPlugin.getPlugin()
-					.logError(String.format(Messages.ConfigurationFileService_WrongConfigurationPropertyValue, key));
+	private static Optional<String> getProperty(ConfigurationSnapshot configuration, String key) {
+		String property = configuration.get(key);
+		if (property != null && !property.isEmpty()) {
+			return Optional.of(property);
+		}
+		if (property == null) {
+			configuration.getProblemReporter().record(Messages.ConfigurationFileService_NoConfigurationPropertyValue,
+					key);
 		} else {
-			SchematicDesignPlugin.getPlugin()
-					.logError(String.format(Messages.ConfigurationFileService_NoConfigurationPropertyValue, key));
+			configuration.getProblemReporter()
+					.record(Messages.ConfigurationFileService_WrongConfigurationPropertyValue, key);
 		}
 		return Optional.empty();
 	}
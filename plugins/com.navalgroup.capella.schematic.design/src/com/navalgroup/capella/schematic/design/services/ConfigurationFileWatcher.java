@@ -0,0 +1,183 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
+import com.navalgroup.capella.schematic.ui.preferences.SchematicPreferencePage;
+
+/**
+ * Invalidate the configuration snapshot when the configuration file preference
+ * changes or when the configuration file is modified on disk, and update the
+ * image index when workspace images change.
+ */
+public class ConfigurationFileWatcher implements IPropertyChangeListener, IResourceChangeListener {
+
+	/**
+	 * Name of the file watcher thread.
+	 */
+	private static final String WATCHER_THREAD_NAME = "Schematic configuration file watcher";
+
+	/**
+	 * Preference store.
+	 */
+	private final IPreferenceStore preferenceStore;
+
+	/**
+	 * Current watch service, null if no file is watched.
+	 */
+	private WatchService watchService;
+
+	/**
+	 * Constructor.
+	 */
+	public ConfigurationFileWatcher() {
+		this.preferenceStore = SchematicUIPlugin.getPlugin().getPreferenceStore();
+	}
+
+	/**
+	 * Start listening to the preference, to the configuration file and to the
+	 * workspace.
+	 */
+	public void install() {
+		preferenceStore.addPropertyChangeListener(this);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+		watch(preferenceStore.getString(SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID));
+	}
+
+	/**
+	 * Stop listening to the preference, to the configuration file and to the
+	 * workspace.
+	 */
+	public void uninstall() {
+		preferenceStore.removePropertyChangeListener(this);
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		stopWatching();
+	}
+
+	@Override
+	public void propertyChange(PropertyChangeEvent event) {
+		if (SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID.equals(event.getProperty())) {
+			ConfigurationFileServices.invalidate();
+			watch(preferenceStore.getString(SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID));
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		List<String> changedPaths = new ArrayList<>();
+		try {
+			event.getDelta().accept(delta -> {
+				IResource resource = delta.getResource();
+				if (resource.getType() == IResource.PROJECT && (delta.getKind() != IResourceDelta.CHANGED
+						|| (delta.getFlags() & IResourceDelta.OPEN) != 0)) {
+					// images of opened/closed projects become (in)accessible
+					changedPaths.add(resource.getFullPath().toString());
+					return false;
+				}
+				if (resource.getType() == IResource.FILE && (delta.getKind() != IResourceDelta.CHANGED
+						|| (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)) {
+					changedPaths.add(resource.getFullPath().toString());
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			SchematicDesignPlugin.getPlugin().logWarning(e.getMessage(), e);
+		}
+		ConfigurationFileServices.workspaceResourcesChanged(changedPaths);
+	}
+
+	/**
+	 * Watch the directory of the configuration file.
+	 *
+	 * @param configurationFilePath
+	 *            String, may be null or empty
+	 */
+	private synchronized void watch(String configurationFilePath) {
+		stopWatching();
+		if (configurationFilePath == null || configurationFilePath.isEmpty()) {
+			return;
+		}
+		Path file = Paths.get(configurationFilePath).toAbsolutePath();
+		Path directory = file.getParent();
+		if (directory == null) {
+			return;
+		}
+		try {
+			WatchService service = FileSystems.getDefault().newWatchService();
+			directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+			watchService = service;
+			Thread thread = new Thread(() -> processEvents(service, file.getFileName()), WATCHER_THREAD_NAME);
+			thread.setDaemon(true);
+			thread.start();
+		} catch (IOException e) {
+			// the snapshot will still be reloaded when the preference changes
+			SchematicDesignPlugin.getPlugin().logWarning(e.getMessage(), e);
+		}
+	}
+
+	private synchronized void stopWatching() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				SchematicDesignPlugin.getPlugin().logWarning(e.getMessage(), e);
+			}
+			watchService = null;
+		}
+	}
+
+	private void processEvents(WatchService service, Path fileName) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (StandardWatchEventKinds.OVERFLOW.equals(event.kind()) || fileName.equals(event.context())) {
+						ConfigurationFileServices.invalidate();
+					}
+				}
+				if (!key.reset()) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ClosedWatchServiceException e) {
+			// watcher has been uninstalled or the file has changed
+		}
+	}
+}
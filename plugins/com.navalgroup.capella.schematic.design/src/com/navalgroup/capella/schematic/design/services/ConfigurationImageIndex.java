@@ -0,0 +1,252 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.eclipse.sirius.diagram.ui.internal.refresh.listeners.WorkspaceFileResourceChangeListener;
+
+/**
+ * Index of the images referenced by a configuration snapshot. Each key whose
+ * value is empty or names an image file, by its extension, is validated once when the configuration is loaded and updated incrementally
+ * when workspace files change, so that resolving an image does no file system
+ * access. Image keys are indexed by normalized workspace path, so that a
+ * changed file or container only validates again the keys referencing it.
+ */
+@SuppressWarnings("restriction")
+public final class ConfigurationImageIndex {
+
+	/**
+	 * Validation status of a configuration image entry.
+	 */
+	public enum ImageStatus {
+		/**
+		 * The image file exists.
+		 */
+		VALID,
+		/**
+		 * The configuration value is empty.
+		 */
+		WRONG_VALUE,
+		/**
+		 * The image file is not accessible.
+		 */
+		NOT_FOUND
+	}
+
+	/**
+	 * Validated configuration image entry.
+	 */
+	public static final class ImageEntry {
+
+		/**
+		 * Validation status.
+		 */
+		private final ImageStatus status;
+
+		/**
+		 * Raw configuration value.
+		 */
+		private final String value;
+
+		/**
+		 * Workspace path of the image, starting with
+		 * {@link ConfigurationFileServices#FILE_SEPARATOR}.
+		 */
+		private final String path;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param status
+		 *            ImageStatus
+		 * @param value
+		 *            String
+		 * @param path
+		 *            String
+		 */
+		private ImageEntry(ImageStatus status, String value, String path) {
+			this.status = status;
+			this.value = value;
+			this.path = path;
+		}
+
+		/**
+		 * Get the validation status.
+		 *
+		 * @return the validation status.
+		 */
+		public ImageStatus getStatus() {
+			return status;
+		}
+
+		/**
+		 * Get the workspace path of the image.
+		 *
+		 * @return the workspace path of the image, null if the value is empty.
+		 */
+		public String getPath() {
+			return path;
+		}
+	}
+
+	/**
+	 * Extensions of the image files, lower case.
+	 */
+	private static final Set<String> IMAGE_EXTENSIONS = Collections.unmodifiableSet(
+			new HashSet<>(Arrays.asList("bmp", "gif", "ico", "jpeg", "jpg", "png", "svg", "tif", "tiff")));
+
+	/**
+	 * Validated entries by configuration key.
+	 */
+	private final ConcurrentMap<String, ImageEntry> entries;
+
+	/**
+	 * Image configuration keys by normalized image workspace path, sorted so
+	 * that the paths of a container are contiguous.
+	 */
+	private final NavigableMap<String, Set<String>> keysByPath;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param entries
+	 *            validated entries
+	 */
+	private ConfigurationImageIndex(ConcurrentMap<String, ImageEntry> entries) {
+		this.entries = entries;
+		NavigableMap<String, Set<String>> keys = new TreeMap<>();
+		for (Entry<String, ImageEntry> entry : entries.entrySet()) {
+			// empty values reference no image
+			if (entry.getValue().getPath() != null) {
+				keys.computeIfAbsent(normalize(entry.getValue().getPath()), path -> new HashSet<>())
+						.add(entry.getKey());
+			}
+		}
+		this.keysByPath = keys;
+	}
+
+	/**
+	 * Build the index of configuration values. Only the empty values and the
+	 * values naming an image file are validated, in parallel: the other values
+	 * are not images and are not indexed.
+	 *
+	 * @param values
+	 *            configuration values by key
+	 * @return the image index.
+	 */
+	public static ConfigurationImageIndex build(Map<String, String> values) {
+		ConcurrentMap<String, ImageEntry> entries = values.entrySet().parallelStream()
+				.filter(entry -> !ConfigurationFileServices.SCHEMATIC_CONF_LABEL_NAME_PROPERTY_VALUE
+						.equals(entry.getKey()) && isImageValue(entry.getValue()))
+				.collect(Collectors.toConcurrentMap(Entry::getKey, entry -> validate(entry.getValue())));
+		return new ConfigurationImageIndex(entries);
+	}
+
+	/**
+	 * Get the validated entry of the key.
+	 *
+	 * @param key
+	 *            String
+	 * @return the validated entry of the key or null if the key is not defined
+	 *         or its value is not an image.
+	 */
+	public ImageEntry get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Validate again the entries referencing the given workspace files or files
+	 * contained in the given workspace containers.
+	 *
+	 * @param workspacePaths
+	 *            workspace paths of changed files or opened/closed projects
+	 */
+	public void revalidate(Collection<String> workspacePaths) {
+		Set<String> changedKeys = new HashSet<>();
+		for (String workspacePath : workspacePaths) {
+			String path = normalize(workspacePath);
+			Set<String> fileKeys = keysByPath.get(path);
+			if (fileKeys != null) {
+				changedKeys.addAll(fileKeys);
+			}
+			String containerPrefix = path + ConfigurationFileServices.FILE_SEPARATOR;
+			for (Set<String> containedKeys : keysByPath
+					.subMap(containerPrefix, true, containerPrefix + Character.MAX_VALUE, false).values()) {
+				changedKeys.addAll(containedKeys);
+			}
+		}
+		for (String key : changedKeys) {
+			entries.computeIfPresent(key, (k, entry) -> validate(entry.value));
+		}
+	}
+
+	/**
+	 * Get the image workspace paths referenced by this index.
+	 *
+	 * @return the normalized image workspace paths referenced by this index.
+	 */
+	public Set<String> getImagePaths() {
+		return Collections.unmodifiableSet(keysByPath.keySet());
+	}
+
+	private static String normalize(String path) {
+		return new org.eclipse.core.runtime.Path(path).makeAbsolute().toString();
+	}
+
+	/**
+	 * Check if a configuration value is empty or names an image file.
+	 *
+	 * @param value
+	 *            String
+	 * @return if the value is empty or has an image file extension.
+	 */
+	private static boolean isImageValue(String value) {
+		if (value == null || value.isEmpty()) {
+			return true;
+		}
+		int dot = value.lastIndexOf('.');
+		return dot > value.lastIndexOf(ConfigurationFileServices.FILE_SEPARATOR)
+				&& IMAGE_EXTENSIONS.contains(value.substring(dot + 1).trim().toLowerCase(Locale.ENGLISH));
+	}
+
+	private static ImageEntry validate(String value) {
+		if (value == null || value.isEmpty()) {
+			return new ImageEntry(ImageStatus.WRONG_VALUE, value, null);
+		}
+		String path = value;
+		if (!path.startsWith(ConfigurationFileServices.FILE_SEPARATOR)) {
+			path = ConfigurationFileServices.FILE_SEPARATOR + path;
+		}
+		File imageFile = WorkspaceFileResourceChangeListener.getInstance().getFileFromURI(value);
+		if (imageFile != null) {
+			Path imagePath = Paths.get(imageFile.getAbsolutePath());
+			if (Files.exists(imagePath) && Files.isRegularFile(imagePath)) {
+				return new ImageEntry(ImageStatus.VALID, value, path);
+			}
+		}
+		return new ImageEntry(ImageStatus.NOT_FOUND, value, path);
+	}
+}
@@ -0,0 +1,135 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.navalgroup.capella.schematic.design.Messages;
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+
+/**
+ * Negative cache of failing configuration lookups for one configuration
+ * snapshot. A failing lookup is recorded once and only counted afterwards.
+ * Problems are reported in the Error Log as a single aggregated status, each
+ * distinct problem being reported once per configuration load.
+ */
+public class ConfigurationProblemReporter {
+
+	/**
+	 * Delay before reporting problems, so that problems of a whole refresh are
+	 * aggregated.
+	 */
+	private static final long REPORT_DELAY = 1000;
+
+	/**
+	 * Configuration file path.
+	 */
+	private final String configurationPath;
+
+	/**
+	 * Problems by message template and by configuration key.
+	 */
+	private final ConcurrentMap<String, ConcurrentMap<String, Problem>> problems = new ConcurrentHashMap<>();
+
+	/**
+	 * Job reporting problems.
+	 */
+	private final Job reportJob;
+
+	/**
+	 * A failing lookup.
+	 */
+	private static final class Problem {
+
+		/**
+		 * Number of failing lookups.
+		 */
+		private final AtomicInteger count = new AtomicInteger();
+
+		/**
+		 * If the problem has already been reported.
+		 */
+		private final AtomicBoolean reported = new AtomicBoolean();
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param configurationPath
+	 *            String
+	 */
+	public ConfigurationProblemReporter(String configurationPath) {
+		this.configurationPath = configurationPath;
+		this.reportJob = new Job(Messages.ConfigurationFileService_ReportProblemsJob) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				report();
+				return Status.OK_STATUS;
+			}
+		};
+		this.reportJob.setSystem(true);
+	}
+
+	/**
+	 * Record a failing lookup. The problem will be reported once.
+	 *
+	 * @param messageTemplate
+	 *            message template of the problem, formatted with the key
+	 * @param key
+	 *            configuration key
+	 */
+	public void record(String messageTemplate, String key) {
+		ConcurrentMap<String, Problem> keys = problems.computeIfAbsent(messageTemplate,
+				template -> new ConcurrentHashMap<>());
+		Problem problem = keys.get(key);
+		if (problem == null) {
+			problem = keys.computeIfAbsent(key, k -> new Problem());
+			reportJob.schedule(REPORT_DELAY);
+		}
+		problem.count.incrementAndGet();
+	}
+
+	/**
+	 * Log problems which have not been reported yet as a single status.
+	 */
+	private void report() {
+		List<IStatus> children = new ArrayList<>();
+		for (Entry<String, ConcurrentMap<String, Problem>> template : problems.entrySet()) {
+			for (Entry<String, Problem> entry : template.getValue().entrySet()) {
+				Problem problem = entry.getValue();
+				if (problem.reported.compareAndSet(false, true)) {
+					String message = String.format(template.getKey(), entry.getKey());
+					children.add(new Status(IStatus.ERROR, SchematicDesignPlugin.PLUGIN_ID, String
+							.format(Messages.ConfigurationFileService_ProblemOccurrences, message, problem.count.get())));
+				}
+			}
+		}
+		if (!children.isEmpty()) {
+			MultiStatus status = new MultiStatus(SchematicDesignPlugin.PLUGIN_ID, 0,
+					children.toArray(new IStatus[children.size()]),
+					String.format(Messages.ConfigurationFileService_ConfigurationProblems, children.size(),
+							configurationPath),
+					null);
+			SchematicDesignPlugin.getPlugin().log(status);
+		}
+	}
+}
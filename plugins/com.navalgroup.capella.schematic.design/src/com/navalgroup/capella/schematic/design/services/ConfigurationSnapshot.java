@@ -0,0 +1,204 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import com.navalgroup.capella.schematic.design.Messages;
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+
+/**
+ * Immutable view of the configuration file at a given time. A snapshot is
+ * loaded once and shared by all readers until the configuration file or the
+ * preference changes.
+ */
+public final class ConfigurationSnapshot {
+
+	/**
+	 * Configuration file path, may be empty.
+	 */
+	private final String path;
+
+	/**
+	 * Generation of this snapshot, incremented at each load.
+	 */
+	private final long generation;
+
+	/**
+	 * Configuration properties, empty if the file could not be loaded.
+	 */
+	private final Map<String, String> properties;
+
+	/**
+	 * If configuration file has been loaded.
+	 */
+	private final boolean loaded;
+
+	/**
+	 * Index of validated images.
+	 */
+	private final ConfigurationImageIndex imageIndex;
+
+	/**
+	 * Failing lookups on this snapshot.
+	 */
+	private final ConfigurationProblemReporter problemReporter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param path
+	 *            String
+	 * @param generation
+	 *            long
+	 * @param properties
+	 *            Map
+	 * @param loaded
+	 *            boolean
+	 */
+	private ConfigurationSnapshot(String path, long generation, Map<String, String> properties, boolean loaded) {
+		this.path = path;
+		this.generation = generation;
+		this.properties = Collections.unmodifiableMap(properties);
+		this.loaded = loaded;
+		this.imageIndex = ConfigurationImageIndex.build(this.properties);
+		this.problemReporter = new ConfigurationProblemReporter(path);
+	}
+
+	/**
+	 * Load a snapshot from the configuration file.
+	 *
+	 * @param configurationFilePath
+	 *            String, may be null or empty
+	 * @param generation
+	 *            long
+	 * @return the loaded snapshot, never null.
+	 */
+	public static ConfigurationSnapshot load(String configurationFilePath, long generation) {
+		if (configurationFilePath == null || configurationFilePath.isEmpty()) {
+			SchematicDesignPlugin.getPlugin().logWarning(Messages.ConfigurationFileService_NoConfigurationFileInPreference);
+			return new ConfigurationSnapshot("", generation, new HashMap<>(), false);
+		}
+		// try to load properties configuration file
+		final Properties fileProperties = new Properties();
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(configurationFilePath))) {
+			fileProperties.load(reader);
+		} catch (IOException ioException) {
+			SchematicDesignPlugin.getPlugin()
+					.logError(String.format(Messages.ConfigurationFileService_CouldNotLoadConfigurationFile,
+							configurationFilePath), ioException);
+			return new ConfigurationSnapshot(configurationFilePath, generation, new HashMap<>(), false);
+		}
+		Map<String, String> values = new HashMap<>();
+		for (String key : fileProperties.stringPropertyNames()) {
+			values.put(key, fileProperties.getProperty(key));
+		}
+		return new ConfigurationSnapshot(configurationFilePath, generation, values, true);
+	}
+
+	/**
+	 * Get the configuration file path.
+	 *
+	 * @return the configuration file path, may be empty.
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Get the generation of this snapshot.
+	 *
+	 * @return the generation of this snapshot.
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Check if the configuration file has been loaded.
+	 *
+	 * @return if the configuration file has been loaded.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Check if the configuration file contains the key.
+	 *
+	 * @param key
+	 *            String
+	 * @return if the configuration file contains the key.
+	 */
+	public boolean containsKey(String key) {
+		return properties.containsKey(key);
+	}
+
+	/**
+	 * Get the raw value of the key.
+	 *
+	 * @param key
+	 *            String
+	 * @return the raw value of the key or null.
+	 */
+	public String get(String key) {
+		return properties.get(key);
+	}
+
+	/**
+	 * Get all configuration properties.
+	 *
+	 * @return an unmodifiable map of configuration properties.
+	 */
+	public Map<String, String> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Get the index of validated images, built when the snapshot is loaded.
+	 *
+	 * @return the index of validated images.
+	 */
+	public ConfigurationImageIndex getImageIndex() {
+		return imageIndex;
+	}
+
+	/**
+	 * Get the negative cache of failing lookups on this snapshot.
+	 *
+	 * @return the negative cache of failing lookups on this snapshot.
+	 */
+	public ConfigurationProblemReporter getProblemReporter() {
+		return problemReporter;
+	}
+
+	/**
+	 * Get a copy of configuration properties as {@link Properties}.
+	 *
+	 * @return a copy of configuration properties or Optional.empty if the file
+	 *         has not been loaded.
+	 */
+	public Optional<Properties> toProperties() {
+		if (!loaded) {
+			return Optional.empty();
+		}
+		Properties copy = new Properties();
+		copy.putAll(properties);
+		return Optional.of(copy);
+	}
+}
@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.sirius.diagram.DDiagram;
+import org.eclipse.sirius.diagram.business.api.query.DDiagramQuery;
+import org.eclipse.sirius.diagram.description.DescriptionPackage;
+import org.eclipse.sirius.diagram.description.Layer;
+
+/**
+ * Activation state of the Schematic layers of a {@link DDiagram}, stored as a
+ * bit mask. The mask is computed once and invalidated when the activated
+ * layers of the diagram change.
+ */
+public final class DiagramLayerState extends AdapterImpl {
+
+	/**
+	 * Bit of the Schematic layer.
+	 */
+	public static final int SCHEMATIC_LAYER = 1;
+
+	/**
+	 * Bit of the RTPF layer.
+	 */
+	public static final int RTPF_LAYER = 1 << 1;
+
+	/**
+	 * Bit of the labels from configuration file layer.
+	 */
+	public static final int LABELS_LAYER = 1 << 2;
+
+	/**
+	 * Value of the mask when it has to be computed.
+	 */
+	private static final int UNKNOWN = -1;
+
+	/**
+	 * Activated layers mask.
+	 */
+	private volatile int mask = UNKNOWN;
+
+	/**
+	 * Get the layer state of the diagram, create it if needed.
+	 *
+	 * @param diagram
+	 *            DDiagram
+	 * @return the layer state of the diagram.
+	 */
+	public static DiagramLayerState of(DDiagram diagram) {
+		DiagramLayerState state = (DiagramLayerState) EcoreUtil.getExistingAdapter(diagram, DiagramLayerState.class);
+		if (state == null) {
+			state = new DiagramLayerState();
+			diagram.eAdapters().add(state);
+		}
+		return state;
+	}
+
+	/**
+	 * Check if the layers are activated.
+	 *
+	 * @param layers
+	 *            bits of the layers
+	 * @return if all the given layers are activated.
+	 */
+	public boolean isActivated(int layers) {
+		int current = mask;
+		if (current == UNKNOWN) {
+			current = computeMask();
+			mask = current;
+		}
+		return (current & layers) == layers;
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		// activated layers and activated transient layers both reference layers
+		Object feature = notification.getFeature();
+		if (!notification.isTouch() && feature instanceof EReference
+				&& DescriptionPackage.Literals.LAYER.isSuperTypeOf(((EReference) feature).getEReferenceType())) {
+			mask = UNKNOWN;
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == DiagramLayerState.class;
+	}
+
+	private int computeMask() {
+		int result = 0;
+		for (Layer layer : new DDiagramQuery((DDiagram) getTarget()).getAllActivatedLayers()) {
+			if (SchematicViewpointServices.SCHEMATIC_LAYER_LABEL.equals(layer.getName())) {
+				result |= SCHEMATIC_LAYER;
+			} else if (SchematicViewpointServices.SCHEMATIC_LAYER_LABEL_RTPF.equals(layer.getName())) {
+				result |= RTPF_LAYER;
+			} else if (SchematicViewpointServices.SCHEMATIC_LAYER_LABEL_CONFIGURATION_FILE.equals(layer.getName())) {
+				result |= LABELS_LAYER;
+			}
+		}
+		return result;
+	}
+}
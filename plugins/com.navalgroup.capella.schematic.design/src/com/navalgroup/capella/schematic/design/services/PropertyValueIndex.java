@@ -0,0 +1,292 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.polarsys.capella.common.data.modellingcore.ModellingcorePackage;
+import org.polarsys.capella.core.data.capellacore.AbstractPropertyValue;
+import org.polarsys.capella.core.data.capellacore.CapellaElement;
+import org.polarsys.capella.core.data.capellacore.CapellacorePackage;
+import org.polarsys.capella.core.data.capellacore.PropertyValueGroup;
+
+/**
+ * Index of the property values applied to a {@link CapellaElement}, directly
+ * or through applied property value groups, by name ignoring case. Direct values
+ * take precedence over values of groups. The index is built lazily and
+ * invalidated by EMF notifications on the applied property values and groups of
+ * the element, on the contents of the groups and on the names of the indexed
+ * property values. Property values and groups shared by many elements carry a
+ * single shared adapter which dispatches their notifications to the dependent
+ * indexes. The shared adapter references the property values, groups and
+ * indexes weakly, so that deleted or unloaded elements can be collected.
+ */
+public final class PropertyValueIndex implements Adapter {
+
+	/**
+	 * Adapter of the observed property values and groups.
+	 */
+	private static final Observer OBSERVER = new Observer();
+
+	/**
+	 * Indexed element.
+	 */
+	private final CapellaElement element;
+
+	/**
+	 * Property values by name ignoring case, null if the index has to be built.
+	 */
+	private volatile Map<String, List<AbstractPropertyValue>> index;
+
+	/**
+	 * Property values and groups observed for this index.
+	 */
+	private final Set<Notifier> observed = new HashSet<>();
+
+	/**
+	 * Adapter added once to each observed property value or group, notifying
+	 * the indexes which depend on it.
+	 */
+	private static final class Observer implements Adapter {
+
+		/**
+		 * Dependent indexes by observed property value or group, both weakly
+		 * referenced. Model elements do not override equals.
+		 */
+		private final Map<Notifier, Set<PropertyValueIndex>> dependants = new WeakHashMap<>();
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			if (notification.isTouch()) {
+				return;
+			}
+			boolean removed = notification.getEventType() == Notification.REMOVING_ADAPTER
+					&& notification.getOldValue() == this;
+			List<PropertyValueIndex> indexes;
+			synchronized (this) {
+				// removed when its resource is unloaded: forget it
+				Set<PropertyValueIndex> notified = removed ? dependants.remove(notification.getNotifier())
+						: dependants.get(notification.getNotifier());
+				if (notified == null) {
+					return;
+				}
+				indexes = new ArrayList<>(notified);
+			}
+			for (PropertyValueIndex propertyValueIndex : indexes) {
+				if (removed) {
+					propertyValueIndex.invalidate();
+				} else {
+					propertyValueIndex.notifyChanged(notification);
+				}
+			}
+		}
+
+		private synchronized void observe(Notifier notifier, PropertyValueIndex propertyValueIndex) {
+			Set<PropertyValueIndex> notified = dependants.get(notifier);
+			if (notified == null) {
+				notified = Collections.newSetFromMap(new WeakHashMap<>());
+				dependants.put(notifier, notified);
+				notifier.eAdapters().add(this);
+			}
+			notified.add(propertyValueIndex);
+		}
+
+		private synchronized void unobserve(Notifier notifier, PropertyValueIndex propertyValueIndex) {
+			Set<PropertyValueIndex> notified = dependants.get(notifier);
+			if (notified != null && notified.remove(propertyValueIndex) && notified.isEmpty()) {
+				dependants.remove(notifier);
+				notifier.eAdapters().remove(this);
+			}
+		}
+
+		@Override
+		public Notifier getTarget() {
+			// shared by all the observed property values and groups
+			return null;
+		}
+
+		@Override
+		public void setTarget(Notifier newTarget) {
+			// shared by all the observed property values and groups
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == Observer.class;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param element
+	 *            CapellaElement
+	 */
+	private PropertyValueIndex(CapellaElement element) {
+		this.element = element;
+	}
+
+	/**
+	 * Get the index of the element, create it if needed.
+	 *
+	 * @param element
+	 *            CapellaElement
+	 * @return the index of the element.
+	 */
+	public static PropertyValueIndex of(CapellaElement element) {
+		for (Adapter adapter : element.eAdapters()) {
+			if (adapter instanceof PropertyValueIndex && ((PropertyValueIndex) adapter).element == element) {
+				return (PropertyValueIndex) adapter;
+			}
+		}
+		PropertyValueIndex propertyValueIndex = new PropertyValueIndex(element);
+		element.eAdapters().add(propertyValueIndex);
+		return propertyValueIndex;
+	}
+
+	/**
+	 * Get the first property value of the given type applied to the element,
+	 * directly or through a group, with the given name, ignoring case.
+	 *
+	 * @param <T>
+	 *            property value type
+	 * @param type
+	 *            property value class
+	 * @param name
+	 *            String
+	 * @return the first property value of the given type with the given name.
+	 */
+	public <T extends AbstractPropertyValue> Optional<T> get(Class<T> type, String name) {
+		Map<String, List<AbstractPropertyValue>> current = index;
+		if (current == null) {
+			current = build();
+		}
+		List<AbstractPropertyValue> values = current.getOrDefault(name, Collections.emptyList());
+		for (AbstractPropertyValue value : values) {
+			if (type.isInstance(value)) {
+				return Optional.of(type.cast(value));
+			}
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		if (notification.isTouch()) {
+			return;
+		}
+		Object feature = notification.getFeature();
+		if (notification.getNotifier() == element) {
+			if (notification.getEventType() == Notification.REMOVING_ADAPTER && notification.getOldValue() == this) {
+				invalidate();
+			} else if (feature == CapellacorePackage.Literals.CAPELLA_ELEMENT__APPLIED_PROPERTY_VALUES
+					|| feature == CapellacorePackage.Literals.CAPELLA_ELEMENT__APPLIED_PROPERTY_VALUE_GROUPS) {
+				invalidate();
+			}
+		} else if (notification.getNotifier() instanceof PropertyValueGroup) {
+			if (feature == CapellacorePackage.Literals.CAPELLA_ELEMENT__APPLIED_PROPERTY_VALUES
+					|| feature == CapellacorePackage.Literals.CAPELLA_ELEMENT__OWNED_PROPERTY_VALUES
+					|| feature == CapellacorePackage.Literals.CAPELLA_ELEMENT__APPLIED_PROPERTY_VALUE_GROUPS) {
+				invalidate();
+			}
+		} else if (feature == ModellingcorePackage.Literals.ABSTRACT_NAMED_ELEMENT__NAME) {
+			invalidate();
+		}
+	}
+
+	@Override
+	public Notifier getTarget() {
+		return element;
+	}
+
+	@Override
+	public void setTarget(Notifier newTarget) {
+		// the target is always the indexed element
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == PropertyValueIndex.class;
+	}
+
+	private synchronized Map<String, List<AbstractPropertyValue>> build() {
+		Map<String, List<AbstractPropertyValue>> current = index;
+		if (current == null) {
+			unobserve();
+			current = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			for (AbstractPropertyValue propertyValue : element.getAppliedPropertyValues()) {
+				add(current, propertyValue);
+			}
+			// flatten groups after direct values so that direct values come first
+			Set<PropertyValueGroup> visitedGroups = new HashSet<>();
+			for (PropertyValueGroup group : element.getAppliedPropertyValueGroups()) {
+				addGroup(current, group, visitedGroups);
+			}
+			index = current;
+		}
+		return current;
+	}
+
+	private void addGroup(Map<String, List<AbstractPropertyValue>> current, PropertyValueGroup group,
+			Set<PropertyValueGroup> visitedGroups) {
+		if (!visitedGroups.add(group)) {
+			return;
+		}
+		observe(group);
+		for (AbstractPropertyValue propertyValue : group.getAppliedPropertyValues()) {
+			add(current, propertyValue);
+		}
+		for (AbstractPropertyValue propertyValue : group.getOwnedPropertyValues()) {
+			if (!group.getAppliedPropertyValues().contains(propertyValue)) {
+				add(current, propertyValue);
+			}
+		}
+		for (PropertyValueGroup subGroup : group.getAppliedPropertyValueGroups()) {
+			addGroup(current, subGroup, visitedGroups);
+		}
+	}
+
+	private void add(Map<String, List<AbstractPropertyValue>> current, AbstractPropertyValue propertyValue) {
+		observe(propertyValue);
+		String name = propertyValue.getName();
+		if (name != null) {
+			current.computeIfAbsent(name, key -> new ArrayList<>(1)).add(propertyValue);
+		}
+	}
+
+	private synchronized void invalidate() {
+		index = null;
+		unobserve();
+	}
+
+	private void observe(Notifier notifier) {
+		if (notifier != element && observed.add(notifier)) {
+			OBSERVER.observe(notifier, this);
+		}
+	}
+
+	private void unobserve() {
+		for (Notifier notifier : observed) {
+			OBSERVER.unobserve(notifier, this);
+		}
+		observed.clear();
+	}
+}
@@ -0,0 +1,198 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+
+import com.navalgroup.capella.schematic.design.SchematicDesignPlugin;
+
+/**
+ * Memoization of Schematic services results scoped to one Sirius refresh. A
+ * scope is opened before and closed after each refresh, on the refreshing
+ * thread. Opening a scope discards any scope left open by a refresh which
+ * failed before being closed, so results never outlive a refresh. Out of a
+ * scope, results are always computed.
+ */
+public final class RefreshScopedMemo {
+
+	/**
+	 * Scope of the current thread, null if no refresh is running.
+	 */
+	private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+	/**
+	 * Number of results found in a scope.
+	 */
+	private static final AtomicLong HITS = new AtomicLong();
+
+	/**
+	 * Number of results computed in a scope.
+	 */
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	/**
+	 * Memoized results of one refresh.
+	 */
+	private static final class Scope {
+
+		/**
+		 * Results by service and arguments.
+		 */
+		private final Map<Key, Object> results = new HashMap<>();
+
+		/**
+		 * Hits in this scope.
+		 */
+		private long hits;
+
+		/**
+		 * Misses in this scope.
+		 */
+		private long misses;
+	}
+
+	/**
+	 * Service and arguments, compared by identity.
+	 */
+	private static final class Key {
+
+		/**
+		 * Service name.
+		 */
+		private final String service;
+
+		/**
+		 * Semantic element.
+		 */
+		private final Object element;
+
+		/**
+		 * View.
+		 */
+		private final Object view;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param service
+		 *            String
+		 * @param element
+		 *            Object
+		 * @param view
+		 *            Object
+		 */
+		private Key(String service, Object element, Object view) {
+			this.service = service;
+			this.element = element;
+			this.view = view;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return service.equals(other.service) && element == other.element && view == other.view;
+		}
+
+		@Override
+		public int hashCode() {
+			return (service.hashCode() * 31 + System.identityHashCode(element)) * 31 + System.identityHashCode(view);
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private RefreshScopedMemo() {
+	}
+
+	/**
+	 * Open a fresh scope on the current thread, the results of a previous scope
+	 * are discarded.
+	 */
+	public static void open() {
+		SCOPE.set(new Scope());
+	}
+
+	/**
+	 * Close the scope of the current thread and release its memoized results.
+	 * The results of a nested refresh are computed again by the outer one.
+	 */
+	public static void close() {
+		Scope scope = SCOPE.get();
+		if (scope != null) {
+			SCOPE.remove();
+			if (SchematicDesignPlugin.getPlugin().isDebugging()) {
+				SchematicDesignPlugin.getPlugin().log(new Status(IStatus.INFO, SchematicDesignPlugin.PLUGIN_ID,
+						"Schematic refresh memo: " + scope.hits + " hit(s), " + scope.misses + " miss(es)"));
+			}
+		}
+	}
+
+	/**
+	 * Get the result of a service, compute it at most once per refresh.
+	 *
+	 * @param <T>
+	 *            result type
+	 * @param service
+	 *            service name
+	 * @param element
+	 *            semantic element
+	 * @param view
+	 *            view
+	 * @param computation
+	 *            computes the result
+	 * @return the result of the service.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T get(String service, Object element, Object view, Supplier<T> computation) {
+		Scope scope = SCOPE.get();
+		if (scope == null) {
+			return computation.get();
+		}
+		Key key = new Key(service, element, view);
+		if (scope.results.containsKey(key)) {
+			scope.hits++;
+			HITS.incrementAndGet();
+			return (T) scope.results.get(key);
+		}
+		T result = computation.get();
+		scope.results.put(key, result);
+		scope.misses++;
+		MISSES.incrementAndGet();
+		return result;
+	}
+
+	/**
+	 * Get the number of results found in a scope since startup.
+	 *
+	 * @return the number of results found in a scope since startup.
+	 */
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	/**
+	 * Get the number of results computed in a scope since startup.
+	 *
+	 * @return the number of results computed in a scope since startup.
+	 */
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+}
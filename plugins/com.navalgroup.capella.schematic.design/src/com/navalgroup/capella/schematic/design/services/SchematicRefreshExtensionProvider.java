@@ -0,0 +1,47 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import org.eclipse.sirius.diagram.DDiagram;
+import org.eclipse.sirius.diagram.business.api.refresh.IRefreshExtension;
+import org.eclipse.sirius.diagram.business.api.refresh.IRefreshExtensionProvider;
+
+/**
+ * Refresh extension opening a {@link RefreshScopedMemo} scope around each
+ * diagram refresh.
+ */
+public class SchematicRefreshExtensionProvider implements IRefreshExtensionProvider {
+
+	/**
+	 * Refresh extension, stateless.
+	 */
+	private static final IRefreshExtension REFRESH_EXTENSION = new IRefreshExtension() {
+
+		@Override
+		public void beforeRefresh(DDiagram dDiagram) {
+			RefreshScopedMemo.open();
+		}
+
+		@Override
+		public void postRefresh(DDiagram dDiagram) {
+			RefreshScopedMemo.close();
+		}
+	};
+
+	@Override
+	public boolean provides(DDiagram diagram) {
+		return true;
+	}
+
+	@Override
+	public IRefreshExtension getRefreshExtension(DDiagram viewPoint) {
+		return REFRESH_EXTENSION;
+	}
+}
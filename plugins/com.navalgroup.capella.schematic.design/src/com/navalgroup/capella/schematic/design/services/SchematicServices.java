@@ -109,7 +109,8 @@ public final class SchematicServices {
 
 	/**
 	 * Get StringPropertyValue with key 'key' applied to element if exists. Search
-	 * in appliedPropertyValues and appliedPropertyValueGroups.
+	 * in appliedPropertyValues and in the contents of appliedPropertyValueGroups,
+	 * through the {@link PropertyValueIndex} of the element.
 	 * 
 	 * @param element
 	 *            CapellaElement
@@ -118,20 +119,13 @@ public final class SchematicServices {
 	 * @return a StringPropertyValue with key 'key' applied to element if exists.
 	 */
 	public static Optional<StringPropertyValue> getStringPropertyValueValue(CapellaElement element, String key) {
-		Optional<StringPropertyValue> propertyValue = element.getAppliedPropertyValues().stream()
-				.filter(StringPropertyValue.class::isInstance).map(StringPropertyValue.class::cast)
-				.filter(pv -> key.equalsIgnoreCase(pv.getName())).findFirst();
-		if (!propertyValue.isPresent()) {
-			propertyValue = element.getAppliedPropertyValueGroups().stream()
-					.map(group -> group.getAppliedPropertyValues()).filter(StringPropertyValue.class::isInstance)
-					.map(StringPropertyValue.class::cast).filter(pv -> key.equalsIgnoreCase(pv.getName())).findFirst();
-		}
-		return propertyValue;
+		return PropertyValueIndex.of(element).get(StringPropertyValue.class, key);
 	}
 
 	/**
 	 * Get IntegerPropertyValue with key 'key' applied to element if exists. Search
-	 * in appliedPropertyValues and appliedPropertyValueGroups.
+	 * in appliedPropertyValues and in the contents of appliedPropertyValueGroups,
+	 * through the {@link PropertyValueIndex} of the element.
 	 * 
 	 * @param element
 	 *            CapellaElement
@@ -140,15 +134,7 @@ public final class SchematicServices {
 	 * @return a IntegerPropertyValue with key 'key' applied to element if exists.
 	 */
 	public static Optional<IntegerPropertyValue> getIntegerPropertyValueValue(CapellaElement element, String key) {
-		Optional<IntegerPropertyValue> propertyValue = element.getAppliedPropertyValues().stream()
-				.filter(IntegerPropertyValue.class::isInstance).map(IntegerPropertyValue.class::cast)
-				.filter(pv -> key.equalsIgnoreCase(pv.getName())).findFirst();
-		if (!propertyValue.isPresent()) {
-			propertyValue = element.getAppliedPropertyValueGroups().stream()
-					.map(group -> group.getAppliedPropertyValues()).filter(IntegerPropertyValue.class::isInstance)
-					.map(IntegerPropertyValue.class::cast).filter(pv -> key.equalsIgnoreCase(pv.getName())).findFirst();
-		}
-		return propertyValue;
+		return PropertyValueIndex.of(element).get(IntegerPropertyValue.class, key);
 	}
 
 	/**
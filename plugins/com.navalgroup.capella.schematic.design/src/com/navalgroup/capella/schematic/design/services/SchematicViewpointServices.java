@@ -12,6 +12,7 @@ package com.navalgroup.capella.schematic.design.services;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.eclipse.emf.ecore.EObject;
@@ -24,18 +25,17 @@ import org.eclipse.sirius.diagram.DDiagramElement;
 import org.eclipse.sirius.diagram.DDiagramElementContainer;
 import org.eclipse.sirius.diagram.DNode;
 import org.eclipse.sirius.diagram.DNodeContainer;
-import org.eclipse.sirius.diagram.business.api.query.DDiagramQuery;
 import org.eclipse.sirius.diagram.business.internal.metamodel.helper.MappingWithInterpreterHelper;
 import org.eclipse.sirius.diagram.description.ContainerMappingImport;
 import org.eclipse.sirius.diagram.description.DiagramElementMapping;
 import org.eclipse.sirius.diagram.description.EdgeMapping;
 import org.eclipse.sirius.diagram.description.EdgeMappingImport;
 import org.eclipse.sirius.diagram.description.IEdgeMapping;
-import org.eclipse.sirius.diagram.description.Layer;
 import org.eclipse.sirius.diagram.description.style.EdgeStyleDescription;
 import org.eclipse.sirius.viewpoint.DSemanticDecorator;
 import org.eclipse.sirius.viewpoint.SiriusPlugin;
 import org.eclipse.sirius.viewpoint.description.style.BasicLabelStyleDescription;
+import org.eclipse.sirius.viewpoint.description.style.StyleDescription;
 import org.eclipse.sirius.viewpoint.description.style.StylePackage;
 import org.polarsys.capella.common.data.modellingcore.AbstractTypedElement;
 import org.polarsys.capella.core.data.capellacore.CapellaElement;
@@ -98,14 +98,18 @@ public final class SchematicViewpointServices {
 
 	/**
 	 * Check if element has a string property value named "schematic.image". This
-	 * value has to be defined in the configuration properties file.
+	 * value has to be defined in the configuration properties file. The property
+	 * value is looked up once per refresh, the children of the container are
+	 * checked on each call since the refresh creates and removes them.
 	 * 
 	 * @param element
 	 *            CapellaElement
 	 * @return if element has a valid string property value named "schematic.image"
 	 */
 	public static boolean hasSchematicImagePropertyValue(CapellaElement element, DDiagramElement container) {
-		return getSchematicImagePropertyValue(element).isPresent() && !hasSchematicDNodeContainerChildren(container);
+		boolean hasImage = RefreshScopedMemo.get("hasSchematicImagePropertyValue", element, null,
+				() -> getSchematicImagePropertyValue(element).isPresent());
+		return hasImage && !hasSchematicDNodeContainerChildren(container);
 	}
 
 	/**
@@ -181,6 +185,20 @@ public final class SchematicViewpointServices {
 	 *         and suffixes defines in configuration file schematic.labels key.
 	 */
 	public static String computeSchematicLabel(EObject element, DDiagramElement view) {
+		return RefreshScopedMemo.get("computeSchematicLabel", element, view,
+				() -> doComputeSchematicLabel(element, view));
+	}
+
+	/**
+	 * Compute element label, see {@link #computeSchematicLabel(EObject, DDiagramElement)}.
+	 * 
+	 * @param element
+	 *            EObject
+	 * @param view
+	 *            DDiagramElement
+	 * @return element label.
+	 */
+	private static String doComputeSchematicLabel(EObject element, DDiagramElement view) {
 		DDiagramElement dContainerView = view;
 		// test if borderedNode -> compute label from DNodeContainer parent
 		if (view.eContainer() instanceof DNodeContainer && isSchematicContainer((DNodeContainer) view.eContainer())) {
@@ -189,14 +207,14 @@ public final class SchematicViewpointServices {
 
 		String label = "";
 		// image + rtpf activated -> name + rtpf if exists
-		if (isSchematicLayerActivated(dContainerView.getParentDiagram())
-				&& isRTPFLayerActivated(dContainerView.getParentDiagram())) {
+		DDiagram parentDiagram = dContainerView.getParentDiagram();
+		if (isSchematicLayerActivated(parentDiagram) && isRTPFLayerActivated(parentDiagram)) {
 			String rtpfLabel = computeSchematicRTPFLabel(element, dContainerView);
 			label = getDDiagramElementLabel(dContainerView);
 			if (!rtpfLabel.isEmpty()) {
 				label += LABEL_SEPARATOR + rtpfLabel;
 			}
-		} else if (isRTPFLayerActivated(dContainerView.getParentDiagram())) {
+		} else if (isRTPFLayerActivated(parentDiagram)) {
 			// image deactivated + rtpf activated -> RTPF if exists else name
 			String rtpfLabel = computeSchematicRTPFLabel(element, dContainerView);
 			if (rtpfLabel.isEmpty()) {
@@ -209,7 +227,7 @@ public final class SchematicViewpointServices {
 			label = getDDiagramElementLabel(dContainerView);
 		}
 
-		if (isLabelsLayerActivated(dContainerView.getParentDiagram())) {
+		if (isLabelsLayerActivated(parentDiagram)) {
 			// get suffixes from configuration file
 			if (element instanceof Part) {
 				// CHECKSTYLE:OFF
@@ -280,10 +298,7 @@ public final class SchematicViewpointServices {
 	 * @return if RTPF layer is activated.
 	 */
 	private static boolean isRTPFLayerActivated(DDiagram dDiagram) {
-		Optional<Layer> findFirst = new DDiagramQuery(dDiagram).getAllActivatedLayers().stream()
-				.filter(layer -> SchematicViewpointServices.SCHEMATIC_LAYER_LABEL_RTPF.equals(layer.getName()))
-				.findFirst();
-		return findFirst.isPresent();
+		return DiagramLayerState.of(dDiagram).isActivated(DiagramLayerState.RTPF_LAYER);
 	}
 
 	/**
@@ -294,9 +309,7 @@ public final class SchematicViewpointServices {
 	 * @return if Schematic layer is activated.
 	 */
 	private static boolean isSchematicLayerActivated(DDiagram dDiagram) {
-		Optional<Layer> findFirst = new DDiagramQuery(dDiagram).getAllActivatedLayers().stream()
-				.filter(layer -> SchematicViewpointServices.SCHEMATIC_LAYER_LABEL.equals(layer.getName())).findFirst();
-		return findFirst.isPresent();
+		return DiagramLayerState.of(dDiagram).isActivated(DiagramLayerState.SCHEMATIC_LAYER);
 	}
 
 	/**
@@ -307,10 +320,7 @@ public final class SchematicViewpointServices {
 	 * @return if labels from configuration file layer is activated.
 	 */
 	private static boolean isLabelsLayerActivated(DDiagram dDiagram) {
-		Optional<Layer> findFirst = new DDiagramQuery(dDiagram).getAllActivatedLayers().stream().filter(
-				layer -> SchematicViewpointServices.SCHEMATIC_LAYER_LABEL_CONFIGURATION_FILE.equals(layer.getName()))
-				.findFirst();
-		return findFirst.isPresent();
+		return DiagramLayerState.of(dDiagram).isActivated(DiagramLayerState.LABELS_LAYER);
 	}
 
 	/**
@@ -347,7 +357,9 @@ public final class SchematicViewpointServices {
 	}
 
 	/**
-	 * container view style label expression.
+	 * container view style label expression. The best style description of the
+	 * mappings whose style does not depend on conditions is resolved once, see
+	 * {@link StyleDescriptionCache}.
 	 * 
 	 * @param view
 	 *            DDiagramElement
@@ -364,30 +376,57 @@ public final class SchematicViewpointServices {
 		final DSemanticDecorator cContainer = (DSemanticDecorator) view.eContainer();
 		if (cContainer != null) {
 			if (mapping instanceof ContainerMappingImport) {
-				mapping = ((ContainerMappingImport) view.getDiagramElementMapping()).getImportedMapping();
-				BasicLabelStyleDescription style = (BasicLabelStyleDescription) new MappingWithInterpreterHelper(
-						interpreter).getBestStyleDescription(mapping, view.getTarget(), view, view, parentDiagram);
-				if (style != null) {
-					styleLabelExpression = style.getLabelExpression();
+				DiagramElementMapping importedMapping = ((ContainerMappingImport) mapping).getImportedMapping();
+				Supplier<StyleDescription> bestStyle = () -> new MappingWithInterpreterHelper(interpreter)
+						.getBestStyleDescription(importedMapping, view.getTarget(), view, view, parentDiagram);
+				StyleDescription style;
+				if (StyleDescriptionCache.isUnconditional(importedMapping)) {
+					// best style does not depend on the view: resolve it once
+					style = StyleDescriptionCache.getInstance().getStyleDescription(importedMapping, bestStyle);
+				} else {
+					style = bestStyle.get();
 				}
+				styleLabelExpression = getLabelExpression(style);
 			} else if (mapping instanceof EdgeMappingImport) {
-				IEdgeMapping edgeMapping = ((EdgeMappingImport) view.getDiagramElementMapping()).getImportedMapping();
+				IEdgeMapping edgeMapping = ((EdgeMappingImport) mapping).getImportedMapping();
 				if (edgeMapping instanceof EdgeMapping) {
-					EdgeStyleDescription style = (EdgeStyleDescription) MappingWithInterpreterHelper
-							.getDefaultStyleDescription((EdgeMapping) edgeMapping);
-					if (style != null && style.getCenterLabelStyleDescription() != null) {
-						styleLabelExpression = style.getCenterLabelStyleDescription().getLabelExpression();
-					}
+					styleLabelExpression = getEdgeLabelExpression((EdgeMapping) edgeMapping);
 				}
 			} else if (mapping instanceof EdgeMapping) {
-				EdgeStyleDescription style = (EdgeStyleDescription) MappingWithInterpreterHelper
-						.getDefaultStyleDescription((EdgeMapping) mapping);
-				if (style != null && style.getCenterLabelStyleDescription() != null) {
-					styleLabelExpression = style.getCenterLabelStyleDescription().getLabelExpression();
-				}
+				styleLabelExpression = getEdgeLabelExpression((EdgeMapping) mapping);
 			}
 		}
 		return styleLabelExpression;
 	}
 
+	/**
+	 * Get label expression of a style description.
+	 * 
+	 * @param style
+	 *            StyleDescription
+	 * @return label expression of a style description or null.
+	 */
+	private static String getLabelExpression(StyleDescription style) {
+		if (style instanceof BasicLabelStyleDescription) {
+			return ((BasicLabelStyleDescription) style).getLabelExpression();
+		}
+		return null;
+	}
+
+	/**
+	 * Get center label expression of the default style of an edge mapping.
+	 * 
+	 * @param edgeMapping
+	 *            EdgeMapping
+	 * @return center label expression of the default style or null.
+	 */
+	private static String getEdgeLabelExpression(EdgeMapping edgeMapping) {
+		EdgeStyleDescription style = (EdgeStyleDescription) MappingWithInterpreterHelper
+				.getDefaultStyleDescription(edgeMapping);
+		if (style != null && style.getCenterLabelStyleDescription() != null) {
+			return style.getCenterLabelStyleDescription().getLabelExpression();
+		}
+		return null;
+	}
+
 }
@@ -0,0 +1,112 @@
+/******************************************************************************
+ * Copyright (c) 2021 Naval Group SA.
+ * All right reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ ******************************************************************************/
+package com.navalgroup.capella.schematic.design.services;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.eclipse.sirius.business.api.componentization.ViewpointRegistryListener2;
+import org.eclipse.sirius.diagram.description.ContainerMapping;
+import org.eclipse.sirius.diagram.description.ContainerMappingImport;
+import org.eclipse.sirius.diagram.description.DiagramElementMapping;
+import org.eclipse.sirius.viewpoint.description.style.StyleDescription;
+
+/**
+ * Cache of the best style descriptions of the mappings whose style does not
+ * depend on conditions, resolved once per session. The cache is cleared when
+ * odesign files are reloaded, which replaces the mappings.
+ */
+public final class StyleDescriptionCache implements ViewpointRegistryListener2 {
+
+	/**
+	 * The shared instance.
+	 */
+	private static final StyleDescriptionCache INSTANCE = new StyleDescriptionCache();
+
+	/**
+	 * Style descriptions of the mappings whose style does not depend on
+	 * conditions.
+	 */
+	private final Map<DiagramElementMapping, Optional<StyleDescription>> styles = Collections
+			.synchronizedMap(new HashMap<>());
+
+	/**
+	 * Constructor.
+	 */
+	private StyleDescriptionCache() {
+	}
+
+	/**
+	 * Get the shared instance.
+	 *
+	 * @return the shared instance.
+	 */
+	public static StyleDescriptionCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Check if the style of a container mapping does not depend on
+	 * conditions: neither the mapping nor the mappings it imports, directly or
+	 * through other imports, have conditional styles.
+	 *
+	 * @param mapping
+	 *            DiagramElementMapping
+	 * @return if the best style of the mapping is the same for all the views.
+	 */
+	public static boolean isUnconditional(DiagramElementMapping mapping) {
+		boolean unconditional = mapping instanceof ContainerMapping;
+		DiagramElementMapping current = mapping;
+		while (unconditional && current != null) {
+			unconditional = ((ContainerMapping) current).getConditionnalStyles().isEmpty();
+			if (current instanceof ContainerMappingImport) {
+				current = ((ContainerMappingImport) current).getImportedMapping();
+				unconditional = unconditional && current instanceof ContainerMapping;
+			} else {
+				current = null;
+			}
+		}
+		return unconditional;
+	}
+
+	/**
+	 * Get the style description of a mapping whose style does not depend on
+	 * conditions, resolve it the first time.
+	 *
+	 * @param mapping
+	 *            DiagramElementMapping
+	 * @param resolver
+	 *            resolves the style description, may return null
+	 * @return the style description or null.
+	 */
+	public StyleDescription getStyleDescription(DiagramElementMapping mapping, Supplier<StyleDescription> resolver) {
+		Optional<StyleDescription> style = styles.get(mapping);
+		if (style == null) {
+			style = Optional.ofNullable(resolver.get());
+			styles.put(mapping, style);
+		}
+		return style.orElse(null);
+	}
+
+	/**
+	 * Clear the cache.
+	 */
+	public void clear() {
+		styles.clear();
+	}
+
+	@Override
+	public void modelerDescriptionFilesLoaded() {
+		clear();
+	}
+}
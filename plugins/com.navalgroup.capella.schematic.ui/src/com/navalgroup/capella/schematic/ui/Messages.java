@@ -25,6 +25,24 @@ public class Messages {
 	public static String SchematicPreferencePage_Description;
 	@TranslatableMessage
 	public static String SchematicPreferencePage_ConfigurationFileLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_ParallelRotationThresholdLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_RotatedImagesCacheSizeLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_PrewarmOrientationsLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_AsyncDecodingLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_VirtualizedImagesLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_PersistentCacheLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_PersistentCacheSizeLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_PaintTimeTransformLabel;
+	@TranslatableMessage
+	public static String SchematicPreferencePage_AsyncSVGRasterizationLabel;
 
 	static {
 		// initialize resource bundle
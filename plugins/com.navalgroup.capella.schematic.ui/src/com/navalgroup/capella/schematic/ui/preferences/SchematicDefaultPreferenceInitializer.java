@@ -22,10 +22,37 @@ import com.navalgroup.capella.schematic.ui.SchematicUIPlugin;
  */
 public class SchematicDefaultPreferenceInitializer extends AbstractPreferenceInitializer {
 
+	/**
+	 * Default number of pixels above which images are rotated in parallel.
+	 */
+	private static final int DEFAULT_PARALLEL_ROTATION_THRESHOLD = 1000 * 1000;
+
+	/**
+	 * Default size of the rotated images cache, in megabytes.
+	 */
+	private static final int DEFAULT_ROTATED_IMAGES_CACHE_SIZE = 64;
+
+	/**
+	 * Default size of the images disk cache, in megabytes.
+	 */
+	private static final int DEFAULT_PERSISTENT_CACHE_SIZE = 256;
+
 	@Override
 	public void initializeDefaultPreferences() {
 		final IPreferenceStore preferenceStore = SchematicUIPlugin.getPlugin().getPreferenceStore();
 		preferenceStore.setDefault(SchematicPreferencePage.CONFIGURATION_FILE_PREF_ID, "");
+		preferenceStore.setDefault(SchematicPreferencePage.PARALLEL_ROTATION_THRESHOLD_PREF_ID,
+				DEFAULT_PARALLEL_ROTATION_THRESHOLD);
+		preferenceStore.setDefault(SchematicPreferencePage.ROTATED_IMAGES_CACHE_SIZE_PREF_ID,
+				DEFAULT_ROTATED_IMAGES_CACHE_SIZE);
+		preferenceStore.setDefault(SchematicPreferencePage.PREWARM_ORIENTATIONS_PREF_ID, false);
+		preferenceStore.setDefault(SchematicPreferencePage.ASYNC_DECODING_PREF_ID, false);
+		preferenceStore.setDefault(SchematicPreferencePage.VIRTUALIZED_IMAGES_PREF_ID, false);
+		preferenceStore.setDefault(SchematicPreferencePage.PERSISTENT_CACHE_PREF_ID, false);
+		preferenceStore.setDefault(SchematicPreferencePage.PERSISTENT_CACHE_SIZE_PREF_ID,
+				DEFAULT_PERSISTENT_CACHE_SIZE);
+		preferenceStore.setDefault(SchematicPreferencePage.PAINT_TIME_TRANSFORM_PREF_ID, false);
+		preferenceStore.setDefault(SchematicPreferencePage.ASYNC_SVG_RASTERIZATION_PREF_ID, false);
 	}
 
 }
@@ -10,8 +10,10 @@
 package com.navalgroup.capella.schematic.ui.preferences;
 
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
@@ -30,10 +32,52 @@ public class SchematicPreferencePage extends FieldEditorPreferencePage implement
 	 * Preference ID for configuration file.
 	 */
 	public static final String CONFIGURATION_FILE_PREF_ID = "SchematicConfigurationFilePreference";
+	/**
+	 * Preference ID for the number of pixels above which images are rotated in
+	 * parallel, out of the UI thread.
+	 */
+	public static final String PARALLEL_ROTATION_THRESHOLD_PREF_ID = "SchematicParallelRotationThresholdPreference";
+	/**
+	 * Preference ID for the size of the rotated images cache, in megabytes.
+	 */
+	public static final String ROTATED_IMAGES_CACHE_SIZE_PREF_ID = "SchematicRotatedImagesCacheSizePreference";
+	/**
+	 * Preference ID for the computation of all image orientations in background.
+	 */
+	public static final String PREWARM_ORIENTATIONS_PREF_ID = "SchematicPrewarmOrientationsPreference";
+	/**
+	 * Preference ID for the decoding of images out of the UI thread.
+	 */
+	public static final String ASYNC_DECODING_PREF_ID = "SchematicAsyncDecodingPreference";
+	/**
+	 * Preference ID for the resolution of images only near the visible area.
+	 */
+	public static final String VIRTUALIZED_IMAGES_PREF_ID = "SchematicVirtualizedImagesPreference";
+	/**
+	 * Preference ID for the storage of computed images on disk.
+	 */
+	public static final String PERSISTENT_CACHE_PREF_ID = "SchematicPersistentCachePreference";
+	/**
+	 * Preference ID for the size of the images stored on disk, in megabytes.
+	 */
+	public static final String PERSISTENT_CACHE_SIZE_PREF_ID = "SchematicPersistentCacheSizePreference";
+	/**
+	 * Preference ID for the rotation and mirroring of images at paint time
+	 * instead of creating transformed images.
+	 */
+	public static final String PAINT_TIME_TRANSFORM_PREF_ID = "SchematicPaintTimeTransformPreference";
+	/**
+	 * Preference ID for the rasterization of SVG images out of the UI thread.
+	 */
+	public static final String ASYNC_SVG_RASTERIZATION_PREF_ID = "SchematicAsyncSVGRasterizationPreference";
 	/**
 	 * Configuration file extension.
 	 */
 	public static final String CONFIGURATION_FILE_EXTENSION = "*.cfg";
+	/**
+	 * Maximum size of the images caches, in megabytes.
+	 */
+	private static final int MAX_CACHE_SIZE = 4096;
 
 	/**
 	 * FieldEditor for configuration file.
@@ -63,6 +107,30 @@ public class SchematicPreferencePage extends FieldEditorPreferencePage implement
 		this.fileFieldEditor.setFileExtensions(new String[] { CONFIGURATION_FILE_EXTENSION });
 		this.fileFieldEditor.setFilterPath(ResourcesPlugin.getWorkspace().getRoot().getLocation().toFile());
 		addField(this.fileFieldEditor);
+		IntegerFieldEditor thresholdFieldEditor = new IntegerFieldEditor(PARALLEL_ROTATION_THRESHOLD_PREF_ID,
+				Messages.SchematicPreferencePage_ParallelRotationThresholdLabel, getFieldEditorParent());
+		thresholdFieldEditor.setValidRange(0, Integer.MAX_VALUE);
+		addField(thresholdFieldEditor);
+		IntegerFieldEditor cacheSizeFieldEditor = new IntegerFieldEditor(ROTATED_IMAGES_CACHE_SIZE_PREF_ID,
+				Messages.SchematicPreferencePage_RotatedImagesCacheSizeLabel, getFieldEditorParent());
+		cacheSizeFieldEditor.setValidRange(1, MAX_CACHE_SIZE);
+		addField(cacheSizeFieldEditor);
+		addField(new BooleanFieldEditor(PREWARM_ORIENTATIONS_PREF_ID,
+				Messages.SchematicPreferencePage_PrewarmOrientationsLabel, getFieldEditorParent()));
+		addField(new BooleanFieldEditor(ASYNC_DECODING_PREF_ID, Messages.SchematicPreferencePage_AsyncDecodingLabel,
+				getFieldEditorParent()));
+		addField(new BooleanFieldEditor(VIRTUALIZED_IMAGES_PREF_ID,
+				Messages.SchematicPreferencePage_VirtualizedImagesLabel, getFieldEditorParent()));
+		addField(new BooleanFieldEditor(PERSISTENT_CACHE_PREF_ID, Messages.SchematicPreferencePage_PersistentCacheLabel,
+				getFieldEditorParent()));
+		IntegerFieldEditor persistentCacheSizeFieldEditor = new IntegerFieldEditor(PERSISTENT_CACHE_SIZE_PREF_ID,
+				Messages.SchematicPreferencePage_PersistentCacheSizeLabel, getFieldEditorParent());
+		persistentCacheSizeFieldEditor.setValidRange(1, MAX_CACHE_SIZE);
+		addField(persistentCacheSizeFieldEditor);
+		addField(new BooleanFieldEditor(PAINT_TIME_TRANSFORM_PREF_ID,
+				Messages.SchematicPreferencePage_PaintTimeTransformLabel, getFieldEditorParent()));
+		addField(new BooleanFieldEditor(ASYNC_SVG_RASTERIZATION_PREF_ID,
+				Messages.SchematicPreferencePage_AsyncSVGRasterizationLabel, getFieldEditorParent()));
 	}
 
 	/**